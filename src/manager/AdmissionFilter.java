@@ -0,0 +1,93 @@
+package manager;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import exception.ErrorResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdmissionFilter extends Filter {
+    private final Semaphore inFlight; //одновременно обрабатываемые запросы на весь сервер
+    private final Map<String, Semaphore> waitingByEndpoint = new ConcurrentHashMap<>(); //места в очереди по контексту
+    private final int queueCapacity;
+    private final Duration queueTimeout;
+    private final Gson jsonMapper;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdmissionFilter(int maxInFlight, int queueCapacity, Duration queueTimeout, Gson jsonMapper) {
+        if (maxInFlight <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Некорректные ограничения на количество запросов");
+        }
+        this.inFlight = new Semaphore(maxInFlight);
+        this.queueCapacity = queueCapacity;
+        this.queueTimeout = queueTimeout;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!admit(exchange.getHttpContext().getPath())) {
+            rejected.incrementAndGet();
+            reject(exchange);
+            return;
+        }
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Ограничение количества одновременных запросов";
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getAvailableSlots() {
+        return inFlight.availablePermits();
+    }
+
+    private boolean admit(String endpoint) {
+        if (inFlight.tryAcquire()) {
+            return true;
+        }
+        Semaphore waiting = waitingByEndpoint.computeIfAbsent(endpoint, path -> new Semaphore(queueCapacity));
+        if (!waiting.tryAcquire()) {
+            return false; //очередь к этому контексту заполнена
+        }
+        try {
+            //ожидание ограничено, поэтому задержка не растет, пока менеджер, например, перезаписывает файл
+            return inFlight.tryAcquire(queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.release();
+        }
+    }
+
+    private void reject(HttpExchange exchange) throws IOException {
+        int code = 429;
+        ErrorResponse errorResponse = new ErrorResponse("Сервер перегружен, повторите запрос позже",
+                exchange.getRequestURI().getPath(), code);
+        byte[] resp = jsonMapper.toJson(errorResponse).getBytes(StandardCharsets.UTF_8);
+        long retryAfter = Math.max(1, (queueTimeout.toMillis() + 999) / 1000);
+        exchange.getResponseHeaders().add("Retry-After", String.valueOf(retryAfter));
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(code, resp.length);
+        exchange.getResponseBody().write(resp);
+        exchange.close();
+    }
+}
@@ -0,0 +1,133 @@
+package manager;
+
+import tasks.Task;
+import util.IntIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+public class ArrayHistoryManager implements HistoryManager {
+    private static final int NONE = -1;
+    //список просмотров хранится в ячейках массивов; все массивы выделяются заранее на всю емкость
+    private final int[] ids;
+    private final int[] prev;
+    private final int[] next;
+    private final IntIntHashMap slotsById; //id задачи -> номер ячейки
+    private final IntFunction<Task> resolver; //задача ищется только при чтении истории
+    private int head = NONE;
+    private int tail = NONE;
+    private int freeSlot = NONE; //список свободных ячеек связан через next
+    private int used = 0;
+    private int size = 0;
+
+    public ArrayHistoryManager(int capacity, IntFunction<Task> resolver) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть больше нуля");
+        }
+        this.ids = new int[capacity];
+        this.prev = new int[capacity];
+        this.next = new int[capacity];
+        this.slotsById = new IntIntHashMap(capacity);
+        this.resolver = resolver;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        int id = task.getId();
+        int slot = slotsById.get(id, NONE);
+        if (slot != NONE) {
+            unlink(slot);
+        } else {
+            if (size == ids.length) {
+                removeSlot(head); //вытесняем давно просмотренную задачу
+            }
+            slot = allocateSlot();
+            ids[slot] = id;
+            slotsById.put(id, slot);
+            size++;
+        }
+        linkLast(slot);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return getHistory(size);
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        int first = NONE;
+        int count = 0;
+        for (int slot = tail; slot != NONE && count < limit; slot = prev[slot]) {
+            first = slot;
+            count++;
+        }
+        List<Task> historyList = new ArrayList<>(count);
+        for (int slot = first; slot != NONE; slot = next[slot]) {
+            Task task = resolver.apply(ids[slot]);
+            if (task != null) {
+                historyList.add(task);
+            }
+        }
+        return historyList;
+    }
+
+    @Override
+    public void remove(int id) {
+        int slot = slotsById.get(id, NONE);
+        if (slot != NONE) {
+            removeSlot(slot);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int allocateSlot() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        return used++;
+    }
+
+    private void removeSlot(int slot) {
+        unlink(slot);
+        slotsById.remove(ids[slot], NONE);
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        size--;
+    }
+
+    private void unlink(int slot) {
+        int before = prev[slot];
+        int after = next[slot];
+        if (before == NONE) {
+            head = after;
+        } else {
+            next[before] = after;
+        }
+        if (after == NONE) {
+            tail = before;
+        } else {
+            prev[after] = before;
+        }
+    }
+
+    private void linkLast(int slot) {
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+    }
+}
@@ -0,0 +1,188 @@
+package manager;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class AsyncHistoryManager implements HistoryManager, AutoCloseable {
+    public enum OverflowPolicy {
+        DROP, //при переполнении новый просмотр отбрасывается, GET не ждет никогда
+        COALESCE //при переполнении читатель сам применяет буфер, схлопывая повторные просмотры одной задачи
+    }
+
+    private final HistoryManager delegate;
+    private final OverflowPolicy policy;
+    //кольцевой буфер на несколько писателей и одного читателя: писатели занимают ячейку через CAS по tail
+    private final AtomicReferenceArray<Task> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final ReentrantLock applyLock = new ReentrantLock(); //delegate меняется только под этой блокировкой
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread consumer;
+    private volatile boolean running = true;
+
+    private AsyncHistoryManager(HistoryManager delegate, int bufferCapacity, OverflowPolicy policy) {
+        if (bufferCapacity <= 0) {
+            throw new IllegalArgumentException("Размер буфера должен быть больше нуля");
+        }
+        int capacity = Integer.highestOneBit(bufferCapacity);
+        if (capacity < bufferCapacity) {
+            capacity <<= 1;
+        }
+        this.delegate = delegate;
+        this.policy = policy;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public static AsyncHistoryManager start(HistoryManager delegate, int bufferCapacity, OverflowPolicy policy) {
+        //поток запускается после конструктора, чтобы не видеть недостроенный объект
+        AsyncHistoryManager historyManager = new AsyncHistoryManager(delegate, bufferCapacity, policy);
+        historyManager.consumer = new Thread(historyManager::consume, "history-consumer");
+        historyManager.consumer.setDaemon(true);
+        historyManager.consumer.start();
+        return historyManager;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        while (!offer(task)) {
+            if (policy == OverflowPolicy.DROP) {
+                dropped.incrementAndGet();
+                return;
+            }
+            flush();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        applyLock.lock();
+        try {
+            drain(); //ожидающие просмотры учитываются до чтения
+            return delegate.getHistory();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        applyLock.lock();
+        try {
+            drain();
+            return delegate.getHistory(limit);
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        applyLock.lock();
+        try {
+            drain(); //иначе просмотр из буфера вернул бы удаленную задачу в историю
+            delegate.remove(id);
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    public void flush() {
+        applyLock.lock();
+        try {
+            drain();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return (int) (tail.get() - head.get());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private boolean offer(Task task) {
+        while (true) {
+            long position = tail.get();
+            long consumed = head.get();
+            if (position - consumed > mask) {
+                return false;
+            }
+            if (tail.compareAndSet(position, position + 1)) {
+                slots.set((int) position & mask, task);
+                if (position == consumed) {
+                    LockSupport.unpark(consumer); //буфер был пуст, читатель мог уснуть
+                }
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        List<Task> batch = new ArrayList<>();
+        long position = head.get();
+        while (position < tail.get()) {
+            int index = (int) position & mask;
+            Task task = slots.get(index);
+            if (task == null) {
+                Thread.onSpinWait(); //ячейка занята, но писатель еще не записал задачу
+                continue;
+            }
+            slots.set(index, null);
+            batch.add(task);
+            position++;
+            head.set(position);
+        }
+        if (batch.size() == 1) {
+            delegate.add(batch.getFirst());
+        } else if (!batch.isEmpty()) {
+            //в истории важен только последний просмотр задачи, остальные можно не применять
+            Map<Integer, Task> latest = new LinkedHashMap<>();
+            for (Task task : batch) {
+                latest.remove(task.getId());
+                latest.put(task.getId(), task);
+            }
+            for (Task task : latest.values()) {
+                delegate.add(task);
+            }
+        }
+    }
+
+    private void consume() {
+        while (running) {
+            if (tail.get() == head.get()) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+                continue;
+            }
+            flush();
+        }
+    }
+}
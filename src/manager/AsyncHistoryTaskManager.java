@@ -0,0 +1,23 @@
+package manager;
+
+public class AsyncHistoryTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private final AsyncHistoryManager historyManager;
+
+    public AsyncHistoryTaskManager(int bufferCapacity, AsyncHistoryManager.OverflowPolicy policy) {
+        this(AsyncHistoryManager.start(Managers.getDefaultHistory(), bufferCapacity, policy));
+    }
+
+    private AsyncHistoryTaskManager(AsyncHistoryManager historyManager) {
+        super(historyManager, new IntervalTree(), false);
+        this.historyManager = historyManager;
+    }
+
+    public long getDroppedViews() {
+        return historyManager.getDroppedCount();
+    }
+
+    @Override
+    public void close() {
+        historyManager.close(); //останавливает поток истории, ожидающие просмотры применяются
+    }
+}
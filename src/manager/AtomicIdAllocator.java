@@ -0,0 +1,17 @@
+package manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AtomicIdAllocator implements IdAllocator {
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public void advanceTo(int usedId) {
+        lastId.accumulateAndGet(usedId, Math::max);
+    }
+}
@@ -2,9 +2,13 @@ package manager;
 
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
+import exception.BadRequestException;
 
 import java.io.IOException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 
 public abstract class BaseHttpHandler implements HttpHandler {
     protected void sendText(HttpExchange h, String text, Integer code) throws IOException {
@@ -14,4 +18,32 @@ public abstract class BaseHttpHandler implements HttpHandler {
         h.getResponseBody().write(resp);
         h.close();
     }
+
+    protected Map<String, String> getQueryParams(HttpExchange h) {
+        Map<String, String> params = new HashMap<>();
+        String query = h.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            String[] keyValue = pair.split("=", 2);
+            String value = keyValue.length == 2 ? URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8) : "";
+            params.put(URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8), value);
+        }
+        return params;
+    }
+
+    protected int parseLimit(String value) {
+        int limit;
+        try {
+            limit = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            String errorMessage = String.format("Неверный формат limit - %s", value);
+            throw new BadRequestException(errorMessage);
+        }
+        if (limit <= 0) {
+            throw new BadRequestException("limit должен быть больше нуля");
+        }
+        return limit;
+    }
 }
@@ -0,0 +1,26 @@
+package manager;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+public class ClientSessionFilter extends Filter {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        String clientId = exchange.getRequestHeaders().getFirst(CLIENT_ID_HEADER);
+        SessionHistoryManager.setCurrentClient(clientId);
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            SessionHistoryManager.clearCurrentClient(); //поток пула обслужит следующий запрос другого клиента
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Определение клиента для истории просмотров";
+    }
+}
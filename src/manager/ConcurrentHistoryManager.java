@@ -0,0 +1,117 @@
+package manager;
+
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentHistoryManager implements HistoryManager {
+    private final Map<Integer, Entry> history = new ConcurrentHashMap<>();
+    //просмотры хранятся в порядке номеров, поэтому чтение не сортирует историю
+    private final ConcurrentSkipListMap<Long, Entry> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong(); //порядок просмотров без общей блокировки
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity; //при превышении вытесняется давно просмотренная задача
+
+    public ConcurrentHistoryManager() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public ConcurrentHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть больше нуля");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task != null) {
+            Entry entry = new Entry(sequence.incrementAndGet(),
+                    new Task(task.getId(), task.getName(), task.getDescription(), task.getStatus()));
+            //compute атомарен для ключа, поэтому порядок одной задачи меняется только под ее записью;
+            //при гонке двух просмотров одной задачи остается более поздний
+            history.compute(task.getId(), (id, old) -> {
+                if (old == null) {
+                    size.incrementAndGet();
+                } else if (old.seq > entry.seq) {
+                    return old;
+                } else {
+                    order.remove(old.seq);
+                }
+                order.put(entry.seq, entry);
+                return entry;
+            });
+            evictOverflow();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return getHistory(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        //идем с конца, чтобы не обходить всю историю; обход не атомарен с переносом просмотра в конец,
+        //поэтому одна задача может встретиться дважды - остается более поздний просмотр
+        List<Task> historyList = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+        for (Entry entry : order.descendingMap().values()) {
+            if (historyList.size() >= limit) {
+                break;
+            }
+            if (seen.add(entry.task.getId())) {
+                historyList.add(entry.task);
+            }
+        }
+        Collections.reverse(historyList);
+        return historyList;
+    }
+
+    @Override
+    public void remove(int id) {
+        history.computeIfPresent(id, (key, old) -> {
+            order.remove(old.seq);
+            size.decrementAndGet();
+            return null;
+        });
+    }
+
+    private void evictOverflow() {
+        while (size.get() > capacity) {
+            Map.Entry<Long, Entry> oldest = order.firstEntry();
+            if (oldest == null) {
+                return;
+            }
+            Entry evicted = oldest.getValue();
+            //запись могла быть обновлена другим потоком; тогда она уже ушла из начала порядка
+            history.computeIfPresent(evicted.task.getId(), (key, current) -> {
+                if (current != evicted) {
+                    return current;
+                }
+                order.remove(current.seq);
+                size.decrementAndGet();
+                return null;
+            });
+        }
+    }
+
+    private static class Entry {
+        final long seq;
+        final Task task;
+
+        public Entry(long seq, Task task) {
+            this.seq = seq;
+            this.task = task;
+        }
+    }
+}
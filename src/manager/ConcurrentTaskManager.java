@@ -0,0 +1,244 @@
+package manager;
+
+import exception.TaskNotFoundException;
+import tasks.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final String TASK_NOT_FOUND = "Задача с id %d не найдена";
+    private static final String EPIC_NOT_FOUND = "Эпик с id %d не найден";
+    private static final String SUBTASK_NOT_FOUND = "Подзадача с id %d не найдена";
+    //порядок захвата: bulkLock -> блокировка полосы -> scheduleLock
+    private final ReadWriteLock bulkLock = new ReentrantReadWriteLock(); //write только для deleteAll*
+    private final ReadWriteLock[] stripes; //задачи по своему id, эпики и подзадачи по id эпика
+    private final ReadWriteLock scheduleLock = new ReentrantReadWriteLock(); //prioritizedTasks и проверка пересечений
+
+    public ConcurrentTaskManager() {
+        this(64, new IntervalTree());
+    }
+
+    public ConcurrentTaskManager(int stripeCount, ConflictChecker conflictChecker) {
+        super(Managers.getConcurrentHistory(), conflictChecker, true);
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Количество полос блокировок должно быть больше нуля");
+        }
+        stripes = new ReadWriteLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return mutate(null, task.getStartTime() != null, () -> super.createTask(task));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return mutate(null, false, () -> super.createEpic(epic));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        checkId(subtask.getEpicId(), "Не существует эпика с id %d");
+        return mutate(subtask.getEpicId(), subtask.getStartTime() != null, () -> super.createSubtask(subtask));
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        checkId(task.getId(), TASK_NOT_FOUND);
+        return mutate(task.getId(), task.getStartTime() != null, () -> super.updateTask(task));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        checkId(epic.getId(), EPIC_NOT_FOUND);
+        return mutate(epic.getId(), false, () -> super.updateEpic(epic));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        checkId(subtask.getId(), SUBTASK_NOT_FOUND);
+        checkId(subtask.getEpicId(), SUBTASK_NOT_FOUND);
+        return mutate(subtask.getEpicId(), subtask.getStartTime() != null, () -> super.updateSubtask(subtask));
+    }
+
+    @Override
+    public Task deleteTaskById(Integer id) {
+        checkId(id, TASK_NOT_FOUND);
+        return mutate(id, false, () -> super.deleteTaskById(id));
+    }
+
+    @Override
+    public Epic deleteEpicById(Integer id) {
+        checkId(id, EPIC_NOT_FOUND);
+        return mutate(id, false, () -> super.deleteEpicById(id));
+    }
+
+    @Override
+    public Subtask deleteSubtaskById(Integer id) {
+        checkId(id, SUBTASK_NOT_FOUND);
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            throw new TaskNotFoundException(String.format(SUBTASK_NOT_FOUND, id));
+        }
+        //подзадача не меняет эпик, поэтому полосу можно выбрать до захвата блокировки
+        return mutate(subtask.getEpicId(), false, () -> super.deleteSubtaskById(id));
+    }
+
+    //просмотр пишет в историю, поэтому не должен проходить между удалением задачи и очисткой ее истории
+    @Override
+    public Task getTaskById(Integer id) {
+        checkId(id, TASK_NOT_FOUND);
+        return read(id, () -> super.getTaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(Integer id) {
+        checkId(id, EPIC_NOT_FOUND);
+        return read(id, () -> super.getEpicById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer id) {
+        checkId(id, SUBTASK_NOT_FOUND);
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            throw new TaskNotFoundException(String.format(SUBTASK_NOT_FOUND, id));
+        }
+        return read(subtask.getEpicId(), () -> super.getSubtaskById(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(Integer epicId) {
+        checkId(epicId, EPIC_NOT_FOUND);
+        return read(epicId, () -> super.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        withLock(bulkLock.writeLock(), () -> {
+            super.deleteAllTasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        withLock(bulkLock.writeLock(), () -> {
+            super.deleteAllSubtasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        withLock(bulkLock.writeLock(), () -> {
+            super.deleteAllEpics();
+            return null;
+        });
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return withLock(scheduleLock.readLock(), super::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to, int limit) {
+        return withLock(scheduleLock.readLock(), () -> super.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit) {
+        return withLock(scheduleLock.readLock(), () -> super.getPrioritizedTasksAfter(startTime, id, to, limit));
+    }
+
+    @Override
+    public Instant findFreeWindow(Duration duration, Instant after) {
+        return withLock(scheduleLock.readLock(), () -> super.findFreeWindow(duration, after));
+    }
+
+    @Override
+    public List<TaskConflict> findConflicts() {
+        return withLock(bulkLock.writeLock(), super::findConflicts);
+    }
+
+    @Override
+    public boolean isEpicStateConsistent() {
+        return withLock(bulkLock.writeLock(), super::isEpicStateConsistent);
+    }
+
+    @Override
+    public boolean isPrioritizedIndexConsistent() {
+        return withLock(bulkLock.writeLock(), super::isPrioritizedIndexConsistent);
+    }
+
+    @Override
+    protected boolean isNotCross(Task newTask) {
+        return withLock(scheduleLock.writeLock(), () -> super.isNotCross(newTask));
+    }
+
+    @Override
+    protected void addToPrioritized(Task task) {
+        withLock(scheduleLock.writeLock(), () -> {
+            super.addToPrioritized(task);
+            return null;
+        });
+    }
+
+    @Override
+    protected void removeFromPrioritized(Integer id) {
+        withLock(scheduleLock.writeLock(), () -> {
+            super.removeFromPrioritized(id);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private <T> T mutate(Integer stripeId, boolean scheduled, Supplier<T> operation) {
+        //для задачи со временем проверка пересечений и вставка в индекс должны быть одной операцией
+        Supplier<T> scheduledOperation = scheduled
+                ? () -> withLock(scheduleLock.writeLock(), operation)
+                : operation;
+        Supplier<T> stripedOperation = stripeId != null
+                ? () -> withLock(stripe(stripeId).writeLock(), scheduledOperation)
+                : scheduledOperation;
+        return withLock(bulkLock.readLock(), stripedOperation);
+    }
+
+    private <T> T read(int stripeId, Supplier<T> operation) {
+        //deleteAll* держат только bulkLock, поэтому чтение полосы без него может застать очистку на середине
+        return withLock(bulkLock.readLock(), () -> withLock(stripe(stripeId).readLock(), operation));
+    }
+
+    private ReadWriteLock stripe(int id) {
+        return stripes[Math.floorMod(id, stripes.length)];
+    }
+
+    private static <T> T withLock(Lock lock, Supplier<T> operation) {
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void checkId(Integer id, String errorMessage) {
+        if (id == null) {
+            throw new TaskNotFoundException(String.format(errorMessage, id));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package manager;
+
+import tasks.Task;
+
+import java.time.Instant;
+
+public interface ConflictChecker {
+    void add(Task task);
+
+    void remove(Integer id);
+
+    boolean hasOverlap(Instant start, Instant end, Integer excludedId);
+
+    void clear();
+}
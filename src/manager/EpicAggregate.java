@@ -0,0 +1,118 @@
+package manager;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class EpicAggregate {
+    private final Map<Integer, Contribution> contributions = new HashMap<>(); //учтенные значения по id подзадачи
+    private final TreeMap<Instant, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<Instant, Integer> endTimes = new TreeMap<>();
+    private Duration totalDuration = Duration.ZERO;
+    private int durationCount = 0;
+    private int newCount = 0;
+    private int inProgressCount = 0;
+    private int doneCount = 0;
+
+    public void add(Subtask subtask) {
+        remove(subtask.getId());
+        Contribution contribution = new Contribution(subtask.getStatus(), subtask.getStartTime(),
+                subtask.getDuration(), subtask.getEndTime());
+        contributions.put(subtask.getId(), contribution);
+        changeStatusCount(contribution.status, 1);
+        if (contribution.startTime != null) {
+            startTimes.merge(contribution.startTime, 1, Integer::sum);
+        }
+        if (contribution.endTime != null) {
+            endTimes.merge(contribution.endTime, 1, Integer::sum);
+        }
+        if (contribution.duration != null) {
+            totalDuration = totalDuration.plus(contribution.duration);
+            durationCount++;
+        }
+    }
+
+    public void remove(Integer subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return;
+        }
+        changeStatusCount(contribution.status, -1);
+        if (contribution.startTime != null) {
+            decrement(startTimes, contribution.startTime);
+        }
+        if (contribution.endTime != null) {
+            decrement(endTimes, contribution.endTime);
+        }
+        if (contribution.duration != null) {
+            totalDuration = totalDuration.minus(contribution.duration);
+            durationCount--;
+        }
+    }
+
+    public void clear() {
+        contributions.clear();
+        startTimes.clear();
+        endTimes.clear();
+        totalDuration = Duration.ZERO;
+        durationCount = 0;
+        newCount = 0;
+        inProgressCount = 0;
+        doneCount = 0;
+    }
+
+    public Status getStatus() {
+        if (inProgressCount > 0) {
+            return Status.IN_PROGRESS;
+        } else if (newCount == 0 && doneCount > 0) {
+            return Status.DONE;
+        } else if (doneCount == 0) {
+            return Status.NEW;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    public void apply(Epic epic) {
+        epic.setStartTime(startTimes.isEmpty() ? null : startTimes.firstKey());
+        epic.setDuration(durationCount == 0 ? null : totalDuration);
+        epic.setEndTime(endTimes.isEmpty() ? null : endTimes.lastKey());
+    }
+
+    private void changeStatusCount(Status status, int delta) {
+        switch (status) {
+            case NEW:
+                newCount += delta;
+                break;
+            case IN_PROGRESS:
+                inProgressCount += delta;
+                break;
+            case DONE:
+                doneCount += delta;
+                break;
+        }
+    }
+
+    private static void decrement(TreeMap<Instant, Integer> multiset, Instant key) {
+        multiset.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    private static class Contribution {
+        final Status status;
+        final Instant startTime;
+        final Duration duration;
+        final Instant endTime;
+
+        public Contribution(Status status, Instant startTime, Duration duration, Instant endTime) {
+            this.status = status;
+            this.startTime = startTime;
+            this.duration = duration;
+            this.endTime = endTime;
+        }
+    }
+}
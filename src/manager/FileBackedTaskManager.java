@@ -4,46 +4,53 @@ import exception.ManagerLoadFileException;
 import exception.ManagerSaveException;
 import tasks.*;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
     private final File data;
+    private final LoggedHistoryManager historyLog; //история пишется в отдельный журнал, CSV при просмотрах не меняется
+    private final List<String> rejectedRows = new ArrayList<>();
+    private final Set<Integer> unscheduledIds = new HashSet<>(); //пересекающиеся строки файла, не попавшие в индекс
+    private final List<String> orphanRows = new ArrayList<>(); //подзадачи без эпика, пишутся в файл как были
+    private int batchDepth = 0;
+    private boolean dirty = false; //внутри пакета изменения копятся и записываются одним save
 
     public FileBackedTaskManager(File data) {
-        super();
+        this(data, new IntervalTree());
+    }
+
+    public FileBackedTaskManager(File data, ConflictChecker conflictChecker) {
+        this(data, conflictChecker, createHistoryLog(data, false));
+    }
+
+    protected FileBackedTaskManager(File data, ConflictChecker conflictChecker, boolean restoreHistory) {
+        this(data, conflictChecker, createHistoryLog(data, restoreHistory));
+    }
+
+    private FileBackedTaskManager(File data, ConflictChecker conflictChecker, LoggedHistoryManager historyLog) {
+        super(historyLog, conflictChecker, false);
         this.data = data;
+        this.historyLog = historyLog;
+    }
+
+    private static LoggedHistoryManager createHistoryLog(File data, boolean restore) {
+        //без восстановления старый журнал не удаляется сразу, а заменяется при первом просмотре или сохранении
+        return LoggedHistoryManager.open(Managers.getDefaultHistory(), new File(data.getPath() + ".history"), restore,
+                1000, 1024);
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
         try {
-            FileBackedTaskManager manager = new FileBackedTaskManager(file);
-            List<String> allLines = Files.readAllLines(file.toPath());
-            for (String line : allLines) {
-                String[] note = line.split(",");
-                if (note[1].equals("type")) {
-                    continue;
-                } else if (TaskTypes.valueOf(note[1]).equals(TaskTypes.TASK)) {
-                    Task task = createTaskFromString(note);
-                    manager.tasks.put(task.getId(), task);
-                    manager.addToPrioritizedList(task);
-                } else if (TaskTypes.valueOf(note[1]).equals(TaskTypes.EPIC)) {
-                    Epic epic = createEpicFromString(note);
-                    manager.epics.put(epic.getId(), epic);
-                } else if (TaskTypes.valueOf(note[1]).equals(TaskTypes.SUBTASK)) {
-                    Subtask subtask = createSubtaskFromString(note);
-                    manager.subtasks.put(subtask.getId(), subtask);
-                    manager.addToPrioritizedList(subtask);
-                    manager.epics.get(subtask.getEpicId()).updateSubtasksId(subtask.getId());
-                }
-            }
-            manager.counter = findLastId(manager);
+            FileBackedTaskManager manager = new FileBackedTaskManager(file, new IntervalTree(), true);
+            manager.loadRows(Files.readAllLines(file.toPath()));
+            manager.restoreHistory();
             return manager;
         } catch (IOException e) {
             String errorMessage = "Ошибка чтения файла " + e.getMessage();
@@ -52,20 +59,133 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
-    private void addToPrioritizedList(Task task) {
-        if (task.getStartTime() != null) {
-            if (prioritizedTasks.isEmpty() || isNotCross(task)) {
-                prioritizedTasks.add(task);
+    protected void loadRows(Collection<String> allLines) {
+        List<Task> allTasks = new ArrayList<>();
+        Map<Integer, String> linesById = new HashMap<>();
+        int lastId = 0;
+        for (String line : allLines) {
+            String[] note = line.split(",");
+            if (note[1].equals("type")) {
+                continue;
+            } else if (TaskTypes.valueOf(note[1]).equals(TaskTypes.TASK)) {
+                allTasks.add(createTaskFromString(note));
+            } else if (TaskTypes.valueOf(note[1]).equals(TaskTypes.EPIC)) {
+                Epic epic = createEpicFromString(note);
+                epics.put(epic.getId(), epic);
+                epicAggregates.put(epic.getId(), new EpicAggregate());
+            } else if (TaskTypes.valueOf(note[1]).equals(TaskTypes.SUBTASK)) {
+                allTasks.add(createSubtaskFromString(note));
             }
+            int id = Integer.parseInt(note[0]);
+            linesById.put(id, line);
+            lastId = Math.max(lastId, id); //id отклоненных строк тоже не выдаются повторно
         }
+        loadTasks(allTasks, linesById);
+        idAllocator.advanceTo(lastId);
+    }
+
+    protected void restoreHistory() {
+        historyLog.replay(this::findById);
     }
 
-    private static int findLastId(FileBackedTaskManager mn) {
-        Set<Integer> list = new HashSet<>();
-        list.addAll(mn.tasks.keySet());
-        list.addAll(mn.epics.keySet());
-        list.addAll(mn.subtasks.keySet());
-        return list.isEmpty() ? 0 : Collections.max(list);
+    public void flushHistory() {
+        historyLog.flush();
+    }
+
+    @Override
+    public void close() {
+        historyLog.close(); //дописывает журнал истории и снимает фоновую задачу сброса
+    }
+
+    public List<String> getRejectedRows() {
+        return new ArrayList<>(rejectedRows);
+    }
+
+    public Set<Integer> getUnscheduledIds() {
+        return new HashSet<>(unscheduledIds);
+    }
+
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    public void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("Пакет изменений не был начат");
+        }
+        batchDepth--;
+        if (batchDepth == 0 && dirty) {
+            dirty = false;
+            save();
+        }
+    }
+
+    private void loadTasks(List<Task> allTasks, Map<Integer, String> linesById) {
+        List<Task> scheduled = new ArrayList<>();
+        Set<Integer> orphanIds = new HashSet<>();
+        for (Task task : allTasks) {
+            if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+                //без эпика подзадачу не к чему привязать, но строка не теряется при следующей записи файла
+                reject(linesById.get(task.getId()), String.format("не существует эпика с id %d", subtask.getEpicId()));
+                orphanRows.add(linesById.get(task.getId()));
+                orphanIds.add(task.getId());
+            } else if (task.getStartTime() != null) {
+                scheduled.add(task);
+            }
+        }
+        //одна сортировка и один проход: пересекающиеся строки загружаются без места в списке приоритетов,
+        //а не проверяются через isNotCross, и остаются видны в findConflicts
+        scheduled.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
+        Task latest = null; //принятая задача с самым поздним окончанием
+        for (Task task : scheduled) {
+            if (latest != null && latest.getEndTime().isAfter(task.getStartTime())
+                    && task.getEndTime().isAfter(latest.getStartTime())) {
+                reject(linesById.get(task.getId()), String.format("пересекается с задачей с id %d", latest.getId()));
+                unscheduledIds.add(task.getId());
+                continue;
+            }
+            addToPrioritized(task);
+            if (latest == null || task.getEndTime().isAfter(latest.getEndTime())) {
+                latest = task;
+            }
+        }
+        for (Task task : allTasks) {
+            if (orphanIds.contains(task.getId())) {
+                continue;
+            }
+            if (task instanceof Subtask subtask) {
+                subtasks.put(subtask.getId(), subtask);
+                epics.get(subtask.getEpicId()).updateSubtasksId(subtask.getId());
+                epicAggregates.get(subtask.getEpicId()).add(subtask);
+            } else {
+                tasks.put(task.getId(), task);
+            }
+        }
+        for (Epic epic : epics.values()) {
+            updateEpicStatus(epic);
+            setEpicTime(epic);
+        }
+    }
+
+    private void reject(String line, String reason) {
+        rejectedRows.add(line + " - " + reason);
+    }
+
+    @Override
+    protected void addToPrioritized(Task task) {
+        unscheduledIds.remove(task.getId()); //после успешного обновления задача снова в индексе
+        super.addToPrioritized(task);
+    }
+
+    @Override
+    protected void removeFromPrioritized(Integer id) {
+        unscheduledIds.remove(id);
+        super.removeFromPrioritized(id);
+    }
+
+    @Override
+    protected boolean isScheduled(Task task) {
+        return super.isScheduled(task) && !unscheduledIds.contains(task.getId());
     }
 
     private static Subtask createSubtaskFromString(String[] str) {
@@ -102,12 +222,14 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     @Override
     public void deleteAllEpics() {
         super.deleteAllEpics();
+        orphanRows.clear();
         save();
     }
 
     @Override
     public void deleteAllSubtasks() {
         super.deleteAllSubtasks();
+        orphanRows.clear();
         save();
     }
 
@@ -181,6 +303,18 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     private void save() {
+        if (batchDepth > 0) {
+            dirty = true;
+            return;
+        }
+        persist();
+    }
+
+    protected void persist() {
+        writeSnapshot(false);
+    }
+
+    protected void writeSnapshot(boolean force) {
         List<Task> allTasks = getAllTasks();
         List<Epic> allEpics = getAllEpics();
         List<Subtask> allSubtasks = getAllSubtasks();
@@ -194,15 +328,28 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         for (Subtask subtask : allSubtasks) {
             allLines.add(subtask.toString());
         }
-        writeStringInFile(allLines);
+        allLines.addAll(orphanRows);
+        writeStringInFile(allLines, force);
+        historyLog.discardStaleLog();
     }
 
-    private void writeStringInFile(List<String> allLines) {
-        try (FileWriter fw = new FileWriter(data)) {
-            fw.write("id,type,name,status,description,start,duration,epic\n");
-            for (String line : allLines) {
-                fw.write(line + "\n");
+    private void writeStringInFile(List<String> allLines, boolean force) {
+        //файл пишется рядом и подменяется целиком: сбой во время записи не оставляет обрезанный CSV
+        File temp = new File(data.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp);
+                 Writer fw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+                fw.write("id,type,name,status,description,start,duration,epic\n");
+                for (String line : allLines) {
+                    fw.write(line + "\n");
+                }
+                fw.flush();
+                if (force) {
+                    out.getChannel().force(true);
+                }
             }
+            Files.move(temp.toPath(), data.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             String errorMessage = "Ошибка при записи в файл " + e.getMessage();
             System.out.println(errorMessage);
@@ -2,6 +2,7 @@ package manager;
 
 import tasks.Task;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public interface HistoryManager {
@@ -9,5 +10,10 @@ public interface HistoryManager {
 
     List<Task> getHistory();
 
+    default List<Task> getHistory(int limit) {
+        List<Task> history = getHistory();
+        return new ArrayList<>(history.subList(Math.max(0, history.size() - limit), history.size()));
+    }
+
     void remove(int id);
 }
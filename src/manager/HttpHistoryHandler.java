@@ -7,6 +7,7 @@ import tasks.Task;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
 public class HttpHistoryHandler extends BaseHttpHandler {
     private TaskManager manager;
@@ -30,6 +31,9 @@ public class HttpHistoryHandler extends BaseHttpHandler {
                     String message = String.format("Обработка метода %s не предусмотрена", method);
                     sendErrorResponse(exchange, message, code);
             }
+        } catch (BadRequestException e) {
+            int code = 400;
+            sendErrorResponse(exchange, e.getMessage(), code);
         } catch (Exception e) {
             int code = 500;
             sendErrorResponse(exchange, e.getMessage(), code);
@@ -48,9 +52,12 @@ public class HttpHistoryHandler extends BaseHttpHandler {
         String path = exchange.getRequestURI().getPath();
         String[] splitedPath = path.split("/");
         if (splitedPath.length == 2) {
-            List<Task> history = manager.getHistory();
+            Map<String, String> params = getQueryParams(exchange);
+            List<Task> history = params.containsKey("limit")
+                    ? manager.getHistory(parseLimit(params.get("limit")))
+                    : manager.getHistory();
             String jsonHistory = jsonMapper.toJson(history);
             sendText(exchange, jsonHistory, 200);
         }
     }
-}
\ No newline at end of file
+}
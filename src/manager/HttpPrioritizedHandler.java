@@ -4,11 +4,17 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import exception.*;
 import tasks.Task;
+import tasks.TaskConflict;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 public class HttpPrioritizedHandler extends BaseHttpHandler {
+    private static final String CURSOR_SEPARATOR = "_";
     private TaskManager manager;
     private Gson jsonMapper;
 
@@ -30,6 +36,9 @@ public class HttpPrioritizedHandler extends BaseHttpHandler {
                     String message = String.format("Обработка метода %s не предусмотрена", method);
                     sendErrorResponse(exchange, message, code);
             }
+        } catch (BadRequestException e) {
+            int code = 400;
+            sendErrorResponse(exchange, e.getMessage(), code);
         } catch (Exception e) {
             int code = 500;
             sendErrorResponse(exchange, e.getMessage(), code);
@@ -48,9 +57,94 @@ public class HttpPrioritizedHandler extends BaseHttpHandler {
         String path = exchange.getRequestURI().getPath();
         String[] splitedPath = path.split("/");
         if (splitedPath.length == 2) {
-            List<Task> prioritizedTasks = manager.getPrioritizedTasks();
-            String jsonPrioritized = jsonMapper.toJson(prioritizedTasks);
-            sendText(exchange, jsonPrioritized, 200);
+            if (getQueryParams(exchange).isEmpty()) {
+                List<Task> prioritizedTasks = manager.getPrioritizedTasks();
+                String jsonPrioritized = jsonMapper.toJson(prioritizedTasks);
+                sendText(exchange, jsonPrioritized, 200);
+            } else {
+                handleGetPage(exchange);
+            }
+        }
+        if (splitedPath.length == 3) {
+            if (splitedPath[2].equals("free")) {
+                handleGetFreeWindow(exchange);
+            } else if (splitedPath[2].equals("conflicts")) {
+                List<TaskConflict> conflicts = manager.findConflicts();
+                String jsonConflicts = jsonMapper.toJson(conflicts);
+                sendText(exchange, jsonConflicts, 200);
+            } else {
+                String errorMessage = String.format("Неизвестный запрос - %s", splitedPath[2]);
+                throw new BadRequestException(errorMessage);
+            }
+        }
+    }
+
+    private void handleGetPage(HttpExchange exchange) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        Instant to = parseInstant(params.get("to"));
+        int limit = params.containsKey("limit") ? parseLimit(params.get("limit")) : Integer.MAX_VALUE;
+        //запрашиваем на одну задачу больше, чтобы узнать, есть ли следующая страница
+        int fetch = limit == Integer.MAX_VALUE ? limit : limit + 1;
+        List<Task> page;
+        if (params.containsKey("cursor")) {
+            String cursor = params.get("cursor");
+            int separator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException(String.format("Неверный формат cursor - %s", cursor));
+            }
+            int id;
+            try {
+                id = Integer.parseInt(cursor.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException(String.format("Неверный формат cursor - %s", cursor));
+            }
+            page = manager.getPrioritizedTasksAfter(parseInstant(cursor.substring(0, separator)), id, to, fetch);
+        } else {
+            Instant from = parseInstant(params.get("from"));
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new BadRequestException(String.format("Начало диапазона %s позже его конца %s", from, to));
+            }
+            page = manager.getPrioritizedTasks(from, to, fetch);
+        }
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            //курсор - полный ключ последней отданной задачи, начала у задач могут совпадать
+            Task last = page.getLast();
+            exchange.getResponseHeaders().add("X-Next-Cursor", last.getStartTime() + CURSOR_SEPARATOR + last.getId());
+        }
+        String jsonPage = jsonMapper.toJson(page);
+        sendText(exchange, jsonPage, 200);
+    }
+
+    private Instant parseInstant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            String errorMessage = String.format("Неверный формат времени - %s", value);
+            throw new BadRequestException(errorMessage);
+        }
+    }
+
+    private void handleGetFreeWindow(HttpExchange exchange) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        Duration duration;
+        Instant after;
+        try {
+            duration = Duration.ofMinutes(Long.parseLong(params.get("duration")));
+        } catch (NumberFormatException e) {
+            String errorMessage = String.format("Неверный формат продолжительности - %s. Укажите число минут.",
+                    params.get("duration"));
+            throw new BadRequestException(errorMessage);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new BadRequestException("Продолжительность должна быть больше нуля");
         }
+        after = params.containsKey("after") ? parseInstant(params.get("after")) : Instant.now();
+        Instant windowStart = manager.findFreeWindow(duration, after);
+        String jsonWindow = jsonMapper.toJson(windowStart);
+        sendText(exchange, jsonWindow, 200);
     }
 }
\ No newline at end of file
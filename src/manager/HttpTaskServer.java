@@ -2,50 +2,156 @@ package manager;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpServer;
+import util.IntLinkedHashSet;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
-    private static final int PORT = 8080;
-    private TaskManager manager;
+    private static final int DEFAULT_PORT = 8080;
+    private static final int QUEUE_SLOTS_PER_THREAD = 16; //сколько запросов ждут в очереди пула на каждый поток
+    private final TaskManager manager;
+    private final int port;
+    private final int backlog;
+    private final ExecutorType executorType;
+    private final int poolSize;
     private HttpServer httpServer;
+    private ExecutorService executor;
+    private AdmissionFilter admissionFilter;
+    private OverloadFilter overloadFilter;
+
+    public enum ExecutorType {
+        DISPATCHER, //все запросы обрабатывает поток-диспетчер HttpServer
+        VIRTUAL_THREADS,
+        BOUNDED_POOL
+    }
 
     public HttpTaskServer(TaskManager manager) {
+        this(manager, DEFAULT_PORT, 0, ExecutorType.DISPATCHER, 0);
+    }
+
+    public HttpTaskServer(TaskManager manager, int port, int backlog, ExecutorType executorType, int poolSize) {
+        if (executorType == ExecutorType.BOUNDED_POOL && poolSize <= 0) {
+            throw new IllegalArgumentException("Размер пула потоков должен быть больше нуля");
+        }
+        //параллельная обработка запросов допустима только с потокобезопасным менеджером: обертка здесь оставила бы
+        //у вызывающего кода ссылку на незащищенный менеджер
+        if (executorType != ExecutorType.DISPATCHER && !manager.isThreadSafe()) {
+            throw new IllegalArgumentException("Для параллельной обработки запросов нужен потокобезопасный менеджер");
+        }
         this.manager = manager;
+        this.port = port;
+        this.backlog = backlog;
+        this.executorType = executorType;
+        this.poolSize = poolSize;
     }
 
     public void start() throws IOException {
-        httpServer = HttpServer.create(new InetSocketAddress(PORT), 0);
+        httpServer = HttpServer.create(new InetSocketAddress(port), backlog);
+        executor = createExecutor();
+        httpServer.setExecutor(overloadFilter != null ? overloadFilter : executor);
         Gson jsonMapper = getGson();
-        httpServer.createContext("/tasks", new HttpTaskHandler(manager, jsonMapper));
-        httpServer.createContext("/epics", new HttpEpicHandler(manager, jsonMapper));
-        httpServer.createContext("/subtasks", new HttpSubtaskHandler(manager, jsonMapper));
-        httpServer.createContext("/history", new HttpHistoryHandler(manager, jsonMapper));
-        httpServer.createContext("/prioritized", new HttpPrioritizedHandler(manager, jsonMapper));
+        List<HttpContext> contexts = List.of(
+                httpServer.createContext("/tasks", new HttpTaskHandler(manager, jsonMapper)),
+                httpServer.createContext("/epics", new HttpEpicHandler(manager, jsonMapper)),
+                httpServer.createContext("/subtasks", new HttpSubtaskHandler(manager, jsonMapper)),
+                httpServer.createContext("/history", new HttpHistoryHandler(manager, jsonMapper)),
+                httpServer.createContext("/prioritized", new HttpPrioritizedHandler(manager, jsonMapper)));
+        ClientSessionFilter sessionFilter = new ClientSessionFilter();
+        for (HttpContext context : contexts) {
+            if (overloadFilter != null) {
+                context.getFilters().add(overloadFilter);
+            }
+            if (admissionFilter != null) {
+                context.getFilters().add(admissionFilter);
+            }
+            context.getFilters().add(sessionFilter);
+        }
         httpServer.start();
-        System.out.printf("Сервер запущен на %d порту\n", PORT);
+        System.out.printf("Сервер запущен на %d порту\n", getPort());
     }
 
     public void stop(int delay) {
         httpServer.stop(delay);
+        if (executor != null) {
+            executor.shutdown();
+        }
         System.out.println("Сервер прекратил работу");
     }
 
+    public void setAdmissionControl(int maxInFlight, int queueCapacity, Duration queueTimeout) {
+        if (httpServer != null) {
+            throw new IllegalStateException("Ограничения задаются до запуска сервера");
+        }
+        admissionFilter = new AdmissionFilter(maxInFlight, queueCapacity, queueTimeout, getGson());
+    }
+
+    public AdmissionFilter getAdmissionFilter() {
+        return admissionFilter;
+    }
+
+    public OverloadFilter getOverloadFilter() {
+        return overloadFilter;
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public TaskManager getManager() {
+        return manager;
+    }
+
+    private ExecutorService createExecutor() {
+        switch (executorType) {
+            case VIRTUAL_THREADS:
+                return Executors.newVirtualThreadPerTaskExecutor();
+            case BOUNDED_POOL:
+                //на каждый поток пула - один выполняемый запрос (+1) и QUEUE_SLOTS_PER_THREAD ожидающих;
+                //остальные сразу получают 503 от OverloadFilter, поэтому очередь пула ограничена этой емкостью
+                ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+                overloadFilter = new OverloadFilter(pool, poolSize * (QUEUE_SLOTS_PER_THREAD + 1), getGson());
+                return pool;
+            default:
+                return null;
+        }
+    }
+
     public static Gson getGson() {
         Gson jsonMapper = new GsonBuilder()
                 .setPrettyPrinting()
                 .registerTypeAdapter(Instant.class, new InstantAdapter())
                 .registerTypeAdapter(Duration.class, new DurationAdapter())
+                .registerTypeAdapter(IntLinkedHashSet.class, new IntLinkedHashSetAdapter())
                 .create();
         return jsonMapper;
     }
 
     public static void main(String[] args) throws IOException {
-        HttpTaskServer server = new HttpTaskServer(Managers.getDefault());
+        int port = Integer.getInteger("server.port", DEFAULT_PORT);
+        int backlog = Integer.getInteger("server.backlog", 0);
+        ExecutorType executorType = ExecutorType.valueOf(System.getProperty("server.executor", "DISPATCHER"));
+        int poolSize = Integer.getInteger("server.poolSize", Runtime.getRuntime().availableProcessors());
+        int historyPerClient = Integer.getInteger("server.historyPerClient", 0);
+        TaskManager manager = historyPerClient > 0
+                ? Managers.getDefaultWithSessions(historyPerClient, historyPerClient * 1000, Duration.ofMinutes(30))
+                : Managers.getDefault();
+        if (executorType != ExecutorType.DISPATCHER) {
+            manager = Managers.getStampedLock(manager); //других ссылок на незащищенный менеджер не остается
+        }
+        HttpTaskServer server = new HttpTaskServer(manager, port, backlog, executorType, poolSize);
+        int maxInFlight = Integer.getInteger("server.maxInFlight", 0);
+        if (maxInFlight > 0) {
+            server.setAdmissionControl(maxInFlight, Integer.getInteger("server.queueCapacity", maxInFlight),
+                    Duration.ofMillis(Integer.getInteger("server.queueTimeoutMillis", 500)));
+        }
         server.start();
     }
 
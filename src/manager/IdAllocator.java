@@ -0,0 +1,7 @@
+package manager;
+
+public interface IdAllocator {
+    int nextId();
+
+    void advanceTo(int usedId); //следующие id будут больше usedId
+}
@@ -9,6 +9,18 @@ public class InMemoryHistoryManager implements HistoryManager {
     private Node head;
     private Node tail;
     private int size = 0;
+    private final int capacity; //при превышении вытесняется давно просмотренная задача
+
+    public InMemoryHistoryManager() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть больше нуля");
+        }
+        this.capacity = capacity;
+    }
 
     @Override
     public void add(Task task) {
@@ -24,6 +36,9 @@ public class InMemoryHistoryManager implements HistoryManager {
             } else {
                 linkLast(task);
             }
+            if (size > capacity) {
+                removeNode(head);
+            }
         }
     }
 
@@ -39,6 +54,22 @@ public class InMemoryHistoryManager implements HistoryManager {
         return getTasks();
     }
 
+    @Override
+    public List<Task> getHistory(int limit) {
+        //идем с хвоста, чтобы не обходить всю историю
+        Node first = null;
+        int count = 0;
+        for (Node node = tail; node != null && count < limit; node = node.previous) {
+            first = node;
+            count++;
+        }
+        ArrayList<Task> historyList = new ArrayList<>(count);
+        for (Node node = first; node != null; node = node.next) {
+            historyList.add(node.task);
+        }
+        return historyList;
+    }
+
     @Override
     public void remove(int id) {
         if (!history.isEmpty() && history.containsKey(id)) {
@@ -6,17 +6,40 @@ import tasks.*;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
-    protected int counter = 0;
+    protected final Map<Integer, Task> tasks;
+    protected final Map<Integer, Epic> epics;
+    protected final Map<Integer, Subtask> subtasks;
+    protected final Map<Integer, EpicAggregate> epicAggregates;
+    protected final IdAllocator idAllocator;
     private HistoryManager historyManager;
-    protected final TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+    protected final PrioritizedIndex prioritizedTasks = new PrioritizedIndex();
+    private final ConflictChecker conflictChecker;
 
     public InMemoryTaskManager() {
-        this.historyManager = Managers.getDefaultHistory();
+        this(new IntervalTree());
+    }
+
+    public InMemoryTaskManager(ConflictChecker conflictChecker) {
+        this(Managers.getDefaultHistory(), conflictChecker, false);
+    }
+
+    protected InMemoryTaskManager(HistoryManager historyManager, ConflictChecker conflictChecker,
+                                  boolean concurrentMaps) {
+        this(historyManager, conflictChecker, concurrentMaps, new AtomicIdAllocator());
+    }
+
+    protected InMemoryTaskManager(HistoryManager historyManager, ConflictChecker conflictChecker,
+                                  boolean concurrentMaps, IdAllocator idAllocator) {
+        this.historyManager = historyManager;
+        this.idAllocator = idAllocator;
+        this.conflictChecker = conflictChecker;
+        this.tasks = concurrentMaps ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.epics = concurrentMaps ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.subtasks = concurrentMaps ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.epicAggregates = concurrentMaps ? new ConcurrentHashMap<>() : new HashMap<>();
     }
 
     @Override
@@ -26,19 +49,52 @@ public class InMemoryTaskManager implements TaskManager {
             task.setId(id);
             tasks.put(task.getId(), task);
             if (task.getStartTime() != null) {
-                prioritizedTasks.add(task);
+                addToPrioritized(task);
             }
         }
         return task;
     }
 
     protected boolean isNotCross(Task newTask) {
-        Optional<Task> cross = prioritizedTasks.stream()
-                .filter(task -> !task.getId().equals(newTask.getId()))
-                .filter(task -> task.getStartTime().isBefore(newTask.getEndTime())
-                        && task.getEndTime().isAfter(newTask.getStartTime()))
-                .findFirst();
-        return cross.isEmpty();
+        return !conflictChecker.hasOverlap(newTask.getStartTime(), newTask.getEndTime(), newTask.getId());
+    }
+
+    protected void addToPrioritized(Task task) {
+        prioritizedTasks.put(task); //старая запись по id удаляется, задача без времени в индекс не попадает
+        conflictChecker.remove(task.getId());
+        if (task.getStartTime() != null) {
+            conflictChecker.add(task);
+        }
+    }
+
+    protected void removeFromPrioritized(Integer id) {
+        prioritizedTasks.remove(id);
+        conflictChecker.remove(id);
+    }
+
+    protected boolean isScheduled(Task task) {
+        return task.getStartTime() != null;
+    }
+
+    public boolean isPrioritizedIndexConsistent() {
+        int scheduled = 0;
+        for (Task task : tasks.values()) {
+            if (isScheduled(task)) {
+                scheduled++;
+                if (!prioritizedTasks.contains(task.getId())) {
+                    return false;
+                }
+            }
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (isScheduled(subtask)) {
+                scheduled++;
+                if (!prioritizedTasks.contains(subtask.getId())) {
+                    return false;
+                }
+            }
+        }
+        return prioritizedTasks.size() == scheduled;
     }
 
     @Override
@@ -46,6 +102,7 @@ public class InMemoryTaskManager implements TaskManager {
         int id = nextId();
         epic.setId(id);
         epics.put(epic.getId(), epic);
+        epicAggregates.put(epic.getId(), new EpicAggregate());
         return epic;
     }
 
@@ -57,11 +114,12 @@ public class InMemoryTaskManager implements TaskManager {
                 subtask.setId(id);
                 subtasks.put(subtask.getId(), subtask);
                 epics.get(subtask.getEpicId()).updateSubtasksId(id); //добавляем Id подзадачи в список подзадач эпика
+                epicAggregates.get(subtask.getEpicId()).add(subtask);
                 updateEpicStatus(epics.get(subtask.getEpicId())); //обновляем статус эпика
                 if (subtask.getStartTime() != null) {
-                    prioritizedTasks.add(subtask);
-                    setEpicTime(epics.get(subtask.getEpicId()));
+                    addToPrioritized(subtask);
                 }
+                setEpicTime(epics.get(subtask.getEpicId()));
             }
         } else {
             String errorMessage = String.format("Не существует эпика с id %d", subtask.getEpicId());
@@ -71,36 +129,7 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     protected void setEpicTime(Epic epic) {
-        Optional<Instant> startEpic = epic.getSubtasksId()
-                .stream().map(subtasks::get)
-                .map(Task::getStartTime)
-                .filter(Objects::nonNull)
-                .sorted().findFirst();
-        if (startEpic.isPresent()) {
-            epic.setStartTime(startEpic.get());
-        } else {
-            epic.setStartTime(null);
-        }
-
-        List<Duration> list = epic.getSubtasksId()
-                .stream().map(subtasks::get)
-                .map(Subtask::getDuration).filter(Objects::nonNull)
-                .toList();
-        Duration epicDuration = null;
-        for (Duration duration : list) {
-            if (epicDuration == null) {
-                epicDuration = duration;
-            } else {
-                epicDuration = epicDuration.plus(duration);
-            }
-        }
-        epic.setDuration(epicDuration);
-
-        epic.getSubtasksId()
-                .stream().map(subtasks::get)
-                .map(Task::getEndTime)
-                .filter(Objects::nonNull)
-                .max(Comparator.naturalOrder()).ifPresentOrElse(epic::setEndTime, () -> epic.setEndTime(null));
+        epicAggregates.get(epic.getId()).apply(epic); //время эпика берется из накопленных значений подзадач
     }
 
     @Override
@@ -110,9 +139,7 @@ public class InMemoryTaskManager implements TaskManager {
             if (task.getStartTime() == null || isNotCross(task)) {
                 tasks.put(task.getId(), task);
                 updated = true;
-                if (task.getStartTime() != null) {
-                    prioritizedTasks.add(task);
-                }
+                addToPrioritized(task);
             }
         } else {
             String errorMessage = String.format("Задача с id %d не найдена", task.getId());
@@ -142,12 +169,11 @@ public class InMemoryTaskManager implements TaskManager {
                 && subtask.getEpicId().equals(subtasks.get(subtask.getId()).getEpicId())) {
             if (subtask.getStartTime() == null || isNotCross(subtask)) {
                 subtasks.put(subtask.getId(), subtask);
+                epicAggregates.get(subtask.getEpicId()).add(subtask);
                 updateEpicStatus(epics.get(subtask.getEpicId())); //обновили статус эпика в связи с новым статусов подзадачи
                 updated = true;
-                if (subtask.getStartTime() != null) {
-                    prioritizedTasks.add(subtask);
-                    setEpicTime(epics.get(subtask.getEpicId()));
-                }
+                addToPrioritized(subtask);
+                setEpicTime(epics.get(subtask.getEpicId()));
             }
         } else {
             String errorMessage = String.format("Подзадача с id %d не найдена", subtask.getId());
@@ -156,7 +182,36 @@ public class InMemoryTaskManager implements TaskManager {
         return updated;
     }
 
-    private void updateEpicStatus(Epic epic) {
+    protected void updateEpicStatus(Epic epic) {
+        epic.setStatus(epicAggregates.get(epic.getId()).getStatus()); //статус по счетчикам подзадач
+    }
+
+    public boolean isEpicStateConsistent() {
+        for (Epic epic : epics.values()) {
+            List<Subtask> epicSubtasks = getEpicSubtasks(epic.getId());
+            Instant startTime = epicSubtasks.stream()
+                    .map(Task::getStartTime)
+                    .filter(Objects::nonNull)
+                    .min(Comparator.naturalOrder()).orElse(null);
+            Instant endTime = epicSubtasks.stream()
+                    .map(Task::getEndTime)
+                    .filter(Objects::nonNull)
+                    .max(Comparator.naturalOrder()).orElse(null);
+            Duration duration = epicSubtasks.stream()
+                    .map(Task::getDuration)
+                    .filter(Objects::nonNull)
+                    .reduce(Duration::plus).orElse(null);
+            if (epic.getStatus() != calculateEpicStatus(epic)
+                    || !Objects.equals(epic.getStartTime(), startTime)
+                    || !Objects.equals(epic.getEndTime(), endTime)
+                    || !Objects.equals(epic.getDuration(), duration)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Status calculateEpicStatus(Epic epic) {
         Status epicStatus;
         int epicDone = 0;
         int epicNew = 0;
@@ -184,20 +239,18 @@ public class InMemoryTaskManager implements TaskManager {
         } else {
             epicStatus = Status.IN_PROGRESS;
         }
-        epic.setStatus(epicStatus);
+        return epicStatus;
     }
 
     @Override
     public List<Subtask> getEpicSubtasks(Integer epicId) {
-        List<Subtask> epicSubtasks;
-        if (epics.containsKey(epicId)) {
-            epicSubtasks = epics.get(epicId).getSubtasksId().stream()
-                    .map(subtasks::get).toList();
-        } else {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
             String errorMessage = String.format("Эпик с id %d не найден", epicId);
             throw new TaskNotFoundException(errorMessage);
-
         }
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtasksCount());
+        epic.forEachSubtaskId(subtaskId -> epicSubtasks.add(subtasks.get(subtaskId)));
         return epicSubtasks;
     }
 
@@ -207,7 +260,7 @@ public class InMemoryTaskManager implements TaskManager {
             String errorMessage = String.format("Задача с id %d не найдена", id);
             throw new TaskNotFoundException(errorMessage);
         }
-        prioritizedTasks.remove(tasks.get(id));
+        removeFromPrioritized(id);
         historyManager.remove(id);
         return tasks.remove(id);
     }
@@ -218,14 +271,13 @@ public class InMemoryTaskManager implements TaskManager {
             String errorMessage = String.format("Эпик с id %d не найден", id);
             throw new TaskNotFoundException(errorMessage);
         }
-        if (epics.containsKey(id)) {
-            for (Integer subtaskId : epics.get(id).getSubtasksId()) {
-                prioritizedTasks.remove(subtasks.get(subtaskId));
-                subtasks.remove(subtaskId);
-                historyManager.remove(subtaskId);
-            }
-        }
+        epics.get(id).forEachSubtaskId(subtaskId -> {
+            removeFromPrioritized(subtaskId);
+            subtasks.remove(subtaskId);
+            historyManager.remove(subtaskId);
+        });
         historyManager.remove(id);
+        epicAggregates.remove(id);
         return epics.remove(id);
     }
 
@@ -238,10 +290,11 @@ public class InMemoryTaskManager implements TaskManager {
         if (subtasks.containsKey(id)) {
             int epicId = subtasks.get(id).getEpicId(); //вычисляем id эпика, куда входит подзадача
             epics.get(epicId).deleteSubtaskId(id); //удаляем id подзадачи из списка подзадач эпика
+            epicAggregates.get(epicId).remove(id);
             updateEpicStatus(epics.get(epicId));
             setEpicTime(epics.get(epicId));
         }
-        prioritizedTasks.remove(subtasks.get(id));
+        removeFromPrioritized(id);
         historyManager.remove(id);
         return subtasks.remove(id);
     }
@@ -294,7 +347,7 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteAllTasks() {
         for (Integer id : tasks.keySet()) {
-            prioritizedTasks.remove(tasks.get(id));
+            removeFromPrioritized(id);
             historyManager.remove(id);
         }
         tasks.clear();
@@ -303,12 +356,13 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void deleteAllSubtasks() {
         for (Integer id : subtasks.keySet()) {
-            prioritizedTasks.remove(subtasks.get(id));
+            removeFromPrioritized(id);
             historyManager.remove(id);
         }
         subtasks.clear();
         for (Epic epic : epics.values()) {
             epic.clearSubtasksId();
+            epicAggregates.get(epic.getId()).clear();
             updateEpicStatus(epic);
             setEpicTime(epic);
         }
@@ -320,10 +374,11 @@ public class InMemoryTaskManager implements TaskManager {
             historyManager.remove(id);
         }
         for (Integer id : subtasks.keySet()) {
-            prioritizedTasks.remove(subtasks.get(id));
+            removeFromPrioritized(id);
             historyManager.remove(id);
         }
         epics.clear();
+        epicAggregates.clear();
         subtasks.clear();
     }
 
@@ -331,13 +386,120 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
+    void setHistoryManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    Task findById(int id) {
+        //поиск без записи в историю, нужен истории, которая хранит только id
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        return task == null ? subtasks.get(id) : task;
+    }
+
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return prioritizedTasks.toList();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to, int limit) {
+        return firstTasks(prioritizedTasks.range(from, to), limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit) {
+        return firstTasks(prioritizedTasks.rangeAfter(startTime, id, to), limit);
+    }
+
+    private static List<Task> firstTasks(Iterable<Task> range, int limit) {
+        List<Task> page = new ArrayList<>();
+        for (Task task : range) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(task);
+        }
+        return page;
+    }
+
+    @Override
+    public Instant findFreeWindow(Duration duration, Instant after) {
+        //задачи не пересекаются, поэтому слева достаточно ближайшей
+        return findFreeWindow(duration, after, prioritizedTasks.lastStartedBefore(after),
+                prioritizedTasks.range(after, null));
+    }
+
+    static Instant findFreeWindow(Duration duration, Instant after, Task previous, Iterable<Task> following) {
+        Instant windowStart = after;
+        if (previous != null && previous.getEndTime().isAfter(windowStart)) {
+            windowStart = previous.getEndTime();
+        }
+        for (Task task : following) {
+            if (!task.getStartTime().isBefore(windowStart.plus(duration))) {
+                break;
+            }
+            if (task.getEndTime().isAfter(windowStart)) {
+                windowStart = task.getEndTime();
+            }
+        }
+        return windowStart;
+    }
+
+    @Override
+    public List<TaskConflict> findConflicts() {
+        List<Task> scheduled = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (task.getStartTime() != null) {
+                scheduled.add(task);
+            }
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (subtask.getStartTime() != null) {
+                scheduled.add(subtask);
+            }
+        }
+        return findConflicts(scheduled);
+    }
+
+    static List<TaskConflict> findConflicts(List<Task> scheduled) {
+        List<TimeEvent> events = new ArrayList<>();
+        for (Task task : scheduled) {
+            if (task.getStartTime().equals(task.getEndTime())) {
+                events.add(new TimeEvent(task.getStartTime(), TimeEvent.POINT, task));
+            } else {
+                events.add(new TimeEvent(task.getStartTime(), TimeEvent.START, task));
+                events.add(new TimeEvent(task.getEndTime(), TimeEvent.END, task));
+            }
+        }
+        //при равном времени сначала окончания, затем задачи нулевой длительности, затем начала
+        events.sort(Comparator.comparing((TimeEvent event) -> event.time).thenComparingInt(event -> event.type));
+        List<TaskConflict> conflicts = new ArrayList<>();
+        Map<Integer, Task> active = new LinkedHashMap<>();
+        for (TimeEvent event : events) {
+            if (event.type == TimeEvent.END) {
+                active.remove(event.task.getId());
+                continue;
+            }
+            for (Task activeTask : active.values()) {
+                conflicts.add(new TaskConflict(activeTask, event.task));
+            }
+            if (event.type == TimeEvent.START) {
+                active.put(event.task.getId(), event.task);
+            }
+        }
+        return conflicts;
     }
 
-    private int nextId() {
-        return ++counter;
+    protected int nextId() {
+        return idAllocator.nextId();
     }
 
     @Override
@@ -348,4 +510,19 @@ public class InMemoryTaskManager implements TaskManager {
                 ", subtasks=" + subtasks +
                 '}';
     }
+
+    private static class TimeEvent {
+        static final int END = 0;
+        static final int POINT = 1;
+        static final int START = 2;
+        final Instant time;
+        final int type;
+        final Task task;
+
+        public TimeEvent(Instant time, int type, Task task) {
+            this.time = time;
+            this.type = type;
+            this.task = task;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package manager;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import util.IntLinkedHashSet;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+
+public class IntLinkedHashSetAdapter extends TypeAdapter<IntLinkedHashSet> {
+
+    @Override
+    public void write(JsonWriter jsonWriter, IntLinkedHashSet set) throws IOException {
+        if (Objects.isNull(set)) {
+            jsonWriter.nullValue();
+            return;
+        }
+        jsonWriter.beginArray();
+        for (PrimitiveIterator.OfInt iterator = set.iterator(); iterator.hasNext(); ) {
+            jsonWriter.value(iterator.nextInt());
+        }
+        jsonWriter.endArray();
+    }
+
+    @Override
+    public IntLinkedHashSet read(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            set.add(jsonReader.nextInt());
+        }
+        jsonReader.endArray();
+        return set;
+    }
+}
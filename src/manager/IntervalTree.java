@@ -0,0 +1,172 @@
+package manager;
+
+import tasks.Task;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+public class IntervalTree implements ConflictChecker {
+    private final Map<Integer, Instant> startTimes = new HashMap<>(); //начало интервала по id задачи, нужно для удаления
+    private Node root;
+
+    @Override
+    public void add(Task task) {
+        remove(task.getId());
+        root = insert(root, new Node(task.getStartTime(), task.getEndTime(), task.getId()));
+        startTimes.put(task.getId(), task.getStartTime());
+    }
+
+    @Override
+    public void remove(Integer id) {
+        Instant start = startTimes.remove(id);
+        if (start != null) {
+            root = delete(root, start, id);
+        }
+    }
+
+    @Override
+    public boolean hasOverlap(Instant start, Instant end, Integer excludedId) {
+        return findOverlap(root, start, end, excludedId);
+    }
+
+    public int size() {
+        return startTimes.size();
+    }
+
+    @Override
+    public void clear() {
+        startTimes.clear();
+        root = null;
+    }
+
+    private boolean findOverlap(Node node, Instant start, Instant end, Integer excludedId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return false; //в поддереве все интервалы заканчиваются до начала искомого
+        }
+        if (findOverlap(node.left, start, end, excludedId)) {
+            return true;
+        }
+        if (!node.start.isBefore(end)) {
+            return false; //узел и правое поддерево начинаются после конца искомого
+        }
+        if (!node.id.equals(excludedId) && node.end.isAfter(start)) {
+            return true;
+        }
+        return findOverlap(node.right, start, end, excludedId);
+    }
+
+    private static int compare(Instant start, Integer id, Node node) {
+        int result = start.compareTo(node.start);
+        return result != 0 ? result : id.compareTo(node.id);
+    }
+
+    private Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, Instant start, Integer id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            node.right = delete(node.right, min.start, min.id);
+            min.left = node.left;
+            min.right = node.right;
+            node = min;
+        }
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        Instant maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static class Node {
+        final Instant start;
+        final Instant end;
+        final Integer id;
+        Instant maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        public Node(Instant start, Instant end, Integer id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+}
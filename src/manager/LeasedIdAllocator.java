@@ -0,0 +1,125 @@
+package manager;
+
+import exception.ManagerLoadFileException;
+import exception.ManagerSaveException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class LeasedIdAllocator implements IdAllocator {
+    private final int leaseSize;
+    private final File highWaterMarkFile; //null - граница хранится только в памяти
+    //диапазоны принадлежат аллокатору, а не потоку: при пуле или виртуальных потоках поток живет один запрос
+    private final AtomicReferenceArray<Lease> leases;
+    private final int stripeMask;
+    private int highWaterMark; //все id до этой границы уже розданы в аренду
+    private volatile int generation = 0; //advanceTo отзывает выданные раньше диапазоны
+
+    public LeasedIdAllocator(int leaseSize) {
+        this(leaseSize, null);
+    }
+
+    public LeasedIdAllocator(int leaseSize, File highWaterMarkFile) {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("Размер диапазона id должен быть больше нуля");
+        }
+        this.leaseSize = leaseSize;
+        this.highWaterMarkFile = highWaterMarkFile;
+        this.highWaterMark = readHighWaterMark();
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.leases = new AtomicReferenceArray<>(stripes);
+        this.stripeMask = stripes - 1;
+    }
+
+    @Override
+    public int nextId() {
+        int stripe = (int) Thread.currentThread().threadId() & stripeMask;
+        while (true) {
+            Lease lease = leases.get(stripe);
+            if (lease != null && lease.generation == generation) {
+                int id = lease.next.getAndIncrement();
+                if (id >= lease.first && id <= lease.limit) { //проверка first защищает от переполнения счетчика
+                    return id;
+                }
+            }
+            takeLease(stripe, lease);
+        }
+    }
+
+    @Override
+    public synchronized void advanceTo(int usedId) {
+        if (usedId > highWaterMark) {
+            highWaterMark = usedId;
+            writeHighWaterMark();
+        }
+        generation++;
+    }
+
+    public synchronized int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    private synchronized void takeLease(int stripe, Lease expired) {
+        if (leases.get(stripe) != expired) {
+            return; //диапазон уже заменил другой поток
+        }
+        if (highWaterMark == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Свободные id закончились");
+        }
+        //общая граница меняется один раз на диапазон, а не на каждую задачу
+        int first = highWaterMark + 1;
+        int limit = highWaterMark > Integer.MAX_VALUE - leaseSize ? Integer.MAX_VALUE : highWaterMark + leaseSize;
+        highWaterMark = limit;
+        writeHighWaterMark();
+        leases.set(stripe, new Lease(first, limit, generation));
+    }
+
+    private int readHighWaterMark() {
+        if (highWaterMarkFile == null || !highWaterMarkFile.exists()) {
+            return 0;
+        }
+        try {
+            String value = Files.readString(highWaterMarkFile.toPath()).trim();
+            return value.isEmpty() ? 0 : Integer.parseInt(value);
+        } catch (IOException | NumberFormatException e) {
+            String errorMessage = "Ошибка чтения границы id " + e.getMessage();
+            System.out.println(errorMessage);
+            throw new ManagerLoadFileException(errorMessage);
+        }
+    }
+
+    private void writeHighWaterMark() {
+        if (highWaterMarkFile == null) {
+            return;
+        }
+        try {
+            //после перезапуска неиспользованные id диапазона пропускаются, но не выдаются повторно
+            File temp = new File(highWaterMarkFile.getPath() + ".tmp");
+            Files.writeString(temp.toPath(), String.valueOf(highWaterMark));
+            Files.move(temp.toPath(), highWaterMarkFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            String errorMessage = "Ошибка при записи границы id " + e.getMessage();
+            System.out.println(errorMessage);
+            throw new ManagerSaveException(errorMessage);
+        }
+    }
+
+    private static class Lease {
+        final AtomicInteger next;
+        final int first;
+        final int limit;
+        final int generation;
+
+        public Lease(int first, int limit, int generation) {
+            this.next = new AtomicInteger(first);
+            this.first = first;
+            this.limit = limit;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package manager;
+
+import exception.ManagerLoadFileException;
+import tasks.Task;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+public class LoggedHistoryManager implements HistoryManager {
+    private static final String REMOVED = "-"; //строка "id" - просмотр, строка "-id" - удаление из истории
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "history-log-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HistoryManager delegate;
+    private final File log;
+    private final int compactThreshold;
+    private final Object ioLock = new Object(); //файл пишет один поток; монитор менеджера не держится во время I/O
+    private BufferedWriter writer; //просмотр только дописывается в буфер, запись на диск идет в фоне без fsync
+    private int records = 0;
+    private boolean pending = false;
+    private boolean truncateOnWrite; //новый менеджер заменяет старый журнал при первой записи или первом сохранении
+    private ScheduledFuture<?> flushTask;
+    private StringBuilder backlog; //не null, пока идет сжатие: новые записи копятся в памяти
+
+    private LoggedHistoryManager(HistoryManager delegate, File log, boolean restore, int compactThreshold) {
+        this.delegate = delegate;
+        this.log = log;
+        this.truncateOnWrite = !restore;
+        this.compactThreshold = compactThreshold;
+    }
+
+    public static LoggedHistoryManager open(HistoryManager delegate, File log, boolean restore,
+                                            long flushIntervalMillis, int compactThreshold) {
+        LoggedHistoryManager historyManager = new LoggedHistoryManager(delegate, log, restore, compactThreshold);
+        //фоновая задача не удерживает менеджер: после его сборки она отменяет сама себя
+        WeakReference<LoggedHistoryManager> self = new WeakReference<>(historyManager);
+        AtomicReference<ScheduledFuture<?>> task = new AtomicReference<>();
+        task.set(FLUSHER.scheduleWithFixedDelay(() -> {
+            LoggedHistoryManager manager = self.get();
+            if (manager == null) {
+                task.get().cancel(false);
+            } else {
+                manager.flush();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS));
+        synchronized (historyManager) {
+            historyManager.flushTask = task.get();
+        }
+        return historyManager;
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        delegate.add(task);
+        if (task != null) {
+            append(String.valueOf(task.getId()));
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public synchronized List<Task> getHistory(int limit) {
+        return delegate.getHistory(limit);
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        delegate.remove(id);
+        append(REMOVED + id);
+    }
+
+    public void replay(IntFunction<Task> resolver) {
+        synchronized (ioLock) {
+            synchronized (this) {
+                if (!log.exists()) {
+                    return;
+                }
+                try {
+                    for (String line : Files.readAllLines(log.toPath())) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        if (line.startsWith(REMOVED)) {
+                            delegate.remove(Integer.parseInt(line.substring(REMOVED.length())));
+                        } else {
+                            Task task = resolver.apply(Integer.parseInt(line));
+                            if (task != null) {
+                                delegate.add(task); //задачи, удаленные или отклоненные при загрузке, пропускаются
+                            }
+                        }
+                    }
+                } catch (IOException | NumberFormatException e) {
+                    String errorMessage = "Ошибка чтения истории просмотров " + e.getMessage();
+                    System.out.println(errorMessage);
+                    throw new ManagerLoadFileException(errorMessage);
+                }
+            }
+            compact();
+        }
+    }
+
+    public synchronized void discardStaleLog() {
+        //данные уже перезаписаны новым менеджером: id старого журнала указывают на другие задачи
+        if (!truncateOnWrite) {
+            return;
+        }
+        try {
+            writer = new BufferedWriter(new FileWriter(log, false));
+            truncateOnWrite = false;
+        } catch (IOException e) {
+            System.out.println("Ошибка при записи истории просмотров " + e.getMessage());
+        }
+    }
+
+    public void flush() {
+        synchronized (ioLock) {
+            BufferedWriter current;
+            synchronized (this) {
+                if (!pending) {
+                    return;
+                }
+                pending = false;
+                if (records > compactThreshold) {
+                    current = null;
+                } else {
+                    current = writer;
+                }
+            }
+            if (current == null) {
+                compact();
+                return;
+            }
+            try {
+                current.flush(); //BufferedWriter сам синхронизирует запись и сброс буфера
+            } catch (IOException e) {
+                System.out.println("Ошибка при записи истории просмотров " + e.getMessage());
+                synchronized (this) {
+                    pending = true;
+                }
+            }
+        }
+    }
+
+    public void close() {
+        synchronized (ioLock) {
+            flush();
+            BufferedWriter current;
+            synchronized (this) {
+                flushTask.cancel(false);
+                current = writer;
+                writer = null;
+            }
+            closeWriter(current);
+        }
+    }
+
+    private void append(String record) {
+        if (backlog != null) {
+            backlog.append(record).append(System.lineSeparator());
+            records++;
+            return;
+        }
+        try {
+            if (writer == null) {
+                writer = new BufferedWriter(new FileWriter(log, !truncateOnWrite));
+                truncateOnWrite = false;
+            }
+            writer.write(record);
+            writer.newLine();
+            records++;
+            pending = true;
+        } catch (IOException e) {
+            //история вспомогательная: ошибка записи журнала не должна ломать чтение задачи
+            System.out.println("Ошибка при записи истории просмотров " + e.getMessage());
+        }
+    }
+
+    private void compact() {
+        //журнал переписывается текущей историей, поэтому его размер не растет с числом просмотров;
+        //под монитором берется только снимок, файл пишется без него
+        List<Task> history;
+        BufferedWriter detached;
+        synchronized (this) {
+            history = delegate.getHistory();
+            detached = writer;
+            writer = null;
+            backlog = new StringBuilder();
+            records = history.size();
+            truncateOnWrite = false;
+        }
+        closeWriter(detached);
+        StringBuilder content = new StringBuilder();
+        for (Task task : history) {
+            content.append(task.getId()).append(System.lineSeparator());
+        }
+        try {
+            File temp = new File(log.getPath() + ".tmp");
+            Files.writeString(temp.toPath(), content);
+            Files.move(temp.toPath(), log.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Ошибка при сжатии истории просмотров " + e.getMessage());
+        }
+        drainBacklog();
+    }
+
+    private void drainBacklog() {
+        //просмотры, пришедшие во время сжатия, дописываются после снимка в том же порядке
+        while (true) {
+            String tail;
+            synchronized (this) {
+                tail = backlog.toString();
+                if (tail.isEmpty()) {
+                    backlog = null;
+                    return;
+                }
+                backlog.setLength(0);
+            }
+            try {
+                Files.writeString(log.toPath(), tail, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                System.out.println("Ошибка при записи истории просмотров " + e.getMessage());
+            }
+        }
+    }
+
+    private static void closeWriter(BufferedWriter writer) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.out.println("Ошибка при записи истории просмотров " + e.getMessage());
+        }
+    }
+}
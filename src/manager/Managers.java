@@ -1,6 +1,8 @@
 package manager;
 
 import java.io.File;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
 
 public class Managers {
     public static TaskManager getDefault() {
@@ -8,11 +10,118 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getDefault(int historyCapacity) {
+        return new InMemoryTaskManager(getDefaultHistory(historyCapacity), new IntervalTree(), false);
+    }
+
+    public static TaskManager getDefaultWithArrayHistory(int historyCapacity) {
+        //история хранит только id и берет задачи из менеджера, поэтому показывает их текущее состояние
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        manager.setHistoryManager(new ArrayHistoryManager(historyCapacity, manager::findById));
+        return manager;
+    }
+
+    public static TaskManager getDefaultWithSessions(int sessionCapacity, int maxTotalEntries, Duration idleTimeout) {
+        return new InMemoryTaskManager(new SessionHistoryManager(sessionCapacity, maxTotalEntries, idleTimeout),
+                new IntervalTree(), false);
+    }
+
+    public static AsyncHistoryTaskManager getDefaultWithAsyncHistory(int bufferCapacity,
+                                                                     AsyncHistoryManager.OverflowPolicy policy) {
+        return new AsyncHistoryTaskManager(bufferCapacity, policy);
+    }
+
+    public static TaskManager getDefault(ConflictChecker conflictChecker) {
+        return new InMemoryTaskManager(conflictChecker);
+    }
+
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    public static TaskManager getConcurrent(int stripeCount, ConflictChecker conflictChecker) {
+        return new ConcurrentTaskManager(stripeCount, conflictChecker);
+    }
+
+    public static TaskManager getStampedLock() {
+        //с потокобезопасной историей чтения по id идут под разделяемой блокировкой
+        return new StampedLockTaskManager(new InMemoryTaskManager(
+                getConcurrentHistory(), new IntervalTree(), true), true);
+    }
+
+    public static TaskManager getStampedLock(TaskManager delegate) {
+        return new StampedLockTaskManager(delegate);
+    }
+
+    public static TaskManager getSnapshot() {
+        return new SnapshotTaskManager();
+    }
+
+    public static TaskManager getSnapshot(ConflictChecker conflictChecker) {
+        return new SnapshotTaskManager(conflictChecker);
+    }
+
+    public static QueuedTaskManager getQueued() {
+        return QueuedTaskManager.start(new InMemoryTaskManager());
+    }
+
+    public static QueuedTaskManager getQueued(TaskManager delegate, int queueCapacity, int maxBatchSize) {
+        return QueuedTaskManager.start(delegate, queueCapacity, maxBatchSize);
+    }
+
+    public static TaskManager getSharded() {
+        return new ShardedTaskManager(Runtime.getRuntime().availableProcessors());
+    }
+
+    public static TaskManager getSharded(int shardCount) {
+        return new ShardedTaskManager(shardCount);
+    }
+
+    public static TaskManager getSharded(int shardCount, IdAllocator idAllocator) {
+        return new ShardedTaskManager(shardCount, new IntervalTree(), idAllocator, ForkJoinPool.commonPool());
+    }
+
+    public static IdAllocator getAtomicIdAllocator() {
+        return new AtomicIdAllocator();
+    }
+
+    public static IdAllocator getLeasedIdAllocator(int leaseSize, File highWaterMark) {
+        return new LeasedIdAllocator(leaseSize, highWaterMark);
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
+
+    public static HistoryManager getConcurrentHistory() {
+        return new ConcurrentHistoryManager();
+    }
+
+    public static HistoryManager getConcurrentHistory(int capacity) {
+        return new ConcurrentHistoryManager(capacity);
+    }
+
+    public static ConflictChecker getIntervalTreeChecker() {
+        return new IntervalTree();
+    }
+
+    public static ConflictChecker getSlotBitmapChecker(Duration granularity) {
+        return new SlotBitmap(granularity);
+    }
+
     public static TaskManager getFileManager(File data) {
         return new FileBackedTaskManager(data);
     }
+
+    public static TaskManager getFileManager(File data, ConflictChecker conflictChecker) {
+        return new FileBackedTaskManager(data, conflictChecker);
+    }
+
+    public static TaskManager getWalFileManager(File data) {
+        return new WalTaskManager(data);
+    }
 }
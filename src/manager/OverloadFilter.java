@@ -0,0 +1,84 @@
+package manager;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import exception.ErrorResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class OverloadFilter extends Filter implements Executor {
+    private static final ThreadLocal<Boolean> OVERLOADED = new ThreadLocal<>(); //запрос не получил места в пуле
+    private final Executor pool;
+    private final Semaphore capacity; //потоки пула плюс места в его очереди
+    private final Gson jsonMapper;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OverloadFilter(Executor pool, int capacity, Gson jsonMapper) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Емкость пула должна быть больше нуля");
+        }
+        this.pool = pool;
+        this.capacity = new Semaphore(capacity);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void execute(Runnable exchange) {
+        //решение принимается в потоке-диспетчере без ожидания: без свободного места запрос не попадает в пул,
+        //а выполняется тут же и получает 503 от фильтра, обработчик не вызывается и новых потоков нет
+        if (!capacity.tryAcquire()) {
+            OVERLOADED.set(true);
+            try {
+                exchange.run();
+            } finally {
+                OVERLOADED.remove();
+            }
+            return;
+        }
+        try {
+            pool.execute(() -> {
+                try {
+                    exchange.run();
+                } finally {
+                    capacity.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            capacity.release(); //пул остановлен, диспетчер закроет соединение
+            throw e;
+        }
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (OVERLOADED.get() == null) {
+            chain.doFilter(exchange);
+            return;
+        }
+        rejected.incrementAndGet();
+        int code = 503;
+        ErrorResponse errorResponse = new ErrorResponse("Сервер перегружен, повторите запрос позже",
+                exchange.getRequestURI().getPath(), code);
+        byte[] resp = jsonMapper.toJson(errorResponse).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Retry-After", "1");
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(code, resp.length);
+        exchange.getResponseBody().write(resp);
+        exchange.close();
+    }
+
+    @Override
+    public String description() {
+        return "Отказ запросам, не поместившимся в пул";
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
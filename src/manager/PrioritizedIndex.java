@@ -0,0 +1,94 @@
+package manager;
+
+import tasks.Task;
+
+import java.time.Instant;
+import java.util.*;
+
+public class PrioritizedIndex {
+    private final TreeMap<Key, Task> tasksByStart = new TreeMap<>();
+    private final Map<Integer, Key> keysById = new HashMap<>(); //ключ, под которым задача лежит в индексе
+
+    public void put(Task task) {
+        remove(task.getId());
+        if (task.getStartTime() != null) {
+            Key key = new Key(task.getStartTime(), task.getId());
+            tasksByStart.put(key, task);
+            keysById.put(task.getId(), key);
+        }
+    }
+
+    public void remove(Integer id) {
+        Key key = keysById.remove(id);
+        if (key != null) {
+            tasksByStart.remove(key);
+        }
+    }
+
+    public boolean contains(Integer id) {
+        return keysById.containsKey(id);
+    }
+
+    public int size() {
+        return tasksByStart.size();
+    }
+
+    public boolean isEmpty() {
+        return tasksByStart.isEmpty();
+    }
+
+    public void clear() {
+        tasksByStart.clear();
+        keysById.clear();
+    }
+
+    public List<Task> toList() {
+        return new ArrayList<>(tasksByStart.values());
+    }
+
+    public Collection<Task> range(Instant from, Instant to) {
+        if (from == null) {
+            return headOf(tasksByStart, null, to);
+        }
+        Key fromKey = new Key(from, Integer.MIN_VALUE);
+        return headOf(tasksByStart.tailMap(fromKey, true), fromKey, to);
+    }
+
+    public Collection<Task> rangeAfter(Instant startTime, int id, Instant to) {
+        //строго после ключа (startTime, id): задачи с тем же началом и меньшим id уже были отданы
+        Key cursor = new Key(startTime, id);
+        return headOf(tasksByStart.tailMap(cursor, false), cursor, to);
+    }
+
+    private static Collection<Task> headOf(NavigableMap<Key, Task> tail, Key fromKey, Instant to) {
+        if (to == null) {
+            return tail.values();
+        }
+        Key toKey = new Key(to, Integer.MIN_VALUE);
+        if (fromKey != null && toKey.compareTo(fromKey) < 0) {
+            return Collections.emptyList(); //headMap с границей левее начала диапазона бросает исключение
+        }
+        return tail.headMap(toKey, false).values();
+    }
+
+    public Task lastStartedBefore(Instant instant) {
+        Map.Entry<Key, Task> entry = tasksByStart.lowerEntry(new Key(instant, Integer.MIN_VALUE));
+        return entry == null ? null : entry.getValue();
+    }
+
+    static class Key implements Comparable<Key> {
+        final Instant startTime;
+        final int id;
+
+        public Key(Instant startTime, int id) {
+            this.startTime = startTime;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = startTime.compareTo(other.startTime);
+            return result != 0 ? result : Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package manager;
+
+import tasks.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class QueuedTaskManager implements TaskManager, AutoCloseable {
+    private static final Command<Void> WAKE_UP = new Command<>(manager -> null);
+    private final TaskManager delegate;
+    private final BlockingQueue<Command<?>> queue;
+    private final int maxBatchSize;
+    //write lock берет только поток-писатель, один раз на пакет; чтения по id меняют историю и тоже идут под write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    //отправители ставят команду под read lock, close выключает прием под write lock: команда не теряется после остановки
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final Thread writer;
+    private final AtomicLong appliedCommands = new AtomicLong();
+    private final AtomicLong appliedBatches = new AtomicLong();
+    private volatile int lastBatchSize = 0;
+    private volatile boolean running = true;
+
+    private QueuedTaskManager(TaskManager delegate, int queueCapacity, int maxBatchSize) {
+        if (queueCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Размер очереди и пакета должен быть больше нуля");
+        }
+        this.delegate = delegate;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.writer = new Thread(this::drain, "task-writer");
+        writer.setDaemon(true);
+    }
+
+    public static QueuedTaskManager start(TaskManager delegate) {
+        return start(delegate, 1024, 64);
+    }
+
+    public static QueuedTaskManager start(TaskManager delegate, int queueCapacity, int maxBatchSize) {
+        //поток запускается после конструктора, чтобы не видеть недостроенный объект
+        QueuedTaskManager manager = new QueuedTaskManager(delegate, queueCapacity, maxBatchSize);
+        manager.writer.start();
+        return manager;
+    }
+
+    public <T> CompletableFuture<T> submit(Function<TaskManager, T> operation) {
+        Command<T> command = new Command<>(operation);
+        stateLock.readLock().lock();
+        try {
+            if (!running) {
+                command.future.completeExceptionally(new IllegalStateException("Очередь команд остановлена"));
+                return command.future;
+            }
+            queue.put(command); //при полной очереди отправитель ждет: так писатель не отстает без ограничений
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            command.future.completeExceptionally(e);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        return command.future;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getAppliedCommands() {
+        return appliedCommands.get();
+    }
+
+    public long getAppliedBatches() {
+        return appliedBatches.get();
+    }
+
+    @Override
+    public void close() {
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+            queue.offer(WAKE_UP); //будит писателя, уже принятые команды будут применены
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        //если писатель завершился аварийно, ожидающие команды не должны висеть вечно
+        IllegalStateException stopped = new IllegalStateException("Очередь команд остановлена");
+        for (Command<?> command : queue) {
+            command.future.completeExceptionally(stopped);
+        }
+        queue.clear();
+    }
+
+    private void drain() {
+        List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            batch.remove(WAKE_UP);
+            if (!batch.isEmpty()) {
+                try {
+                    applyBatch(batch);
+                } catch (Throwable e) {
+                    //уже завершенные команды не меняются, остальные получают ошибку
+                    for (Command<?> command : batch) {
+                        command.future.completeExceptionally(e);
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void applyBatch(List<Command<?>> batch) {
+        Throwable saveError = null;
+        lock.writeLock().lock();
+        try {
+            if (delegate instanceof FileBackedTaskManager fileManager) {
+                fileManager.beginBatch();
+            }
+            for (Command<?> command : batch) {
+                command.apply(delegate);
+            }
+            if (delegate instanceof FileBackedTaskManager fileManager) {
+                try {
+                    fileManager.endBatch(); //одна запись файла на весь пакет
+                } catch (Throwable e) {
+                    saveError = e;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastBatchSize = batch.size();
+        appliedBatches.incrementAndGet();
+        appliedCommands.addAndGet(batch.size());
+        for (Command<?> command : batch) {
+            command.complete(saveError);
+        }
+    }
+
+    private <T> T execute(Function<TaskManager, T> operation) {
+        try {
+            return submit(operation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <T> T withLock(Lock lock, Supplier<T> operation) {
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return execute(manager -> manager.createTask(task));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return execute(manager -> manager.createEpic(epic));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return execute(manager -> manager.createSubtask(subtask));
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        return execute(manager -> manager.updateTask(task));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        return execute(manager -> manager.updateEpic(epic));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        return execute(manager -> manager.updateSubtask(subtask));
+    }
+
+    @Override
+    public Task deleteTaskById(Integer id) {
+        return execute(manager -> manager.deleteTaskById(id));
+    }
+
+    @Override
+    public Epic deleteEpicById(Integer id) {
+        return execute(manager -> manager.deleteEpicById(id));
+    }
+
+    @Override
+    public Subtask deleteSubtaskById(Integer id) {
+        return execute(manager -> manager.deleteSubtaskById(id));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        execute(manager -> {
+            manager.deleteAllTasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        execute(manager -> {
+            manager.deleteAllSubtasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        execute(manager -> {
+            manager.deleteAllEpics();
+            return null;
+        });
+    }
+
+    @Override
+    public Task getTaskById(Integer id) {
+        return withLock(lock.writeLock(), () -> delegate.getTaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(Integer id) {
+        return withLock(lock.writeLock(), () -> delegate.getEpicById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer id) {
+        return withLock(lock.writeLock(), () -> delegate.getSubtaskById(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(Integer epicId) {
+        return withLock(lock.readLock(), () -> delegate.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return withLock(lock.readLock(), delegate::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return withLock(lock.readLock(), delegate::getAllEpics);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return withLock(lock.readLock(), delegate::getAllSubtasks);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return withLock(lock.writeLock(), delegate::getHistory);
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return withLock(lock.writeLock(), () -> delegate.getHistory(limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return withLock(lock.readLock(), delegate::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to, int limit) {
+        return withLock(lock.readLock(), () -> delegate.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit) {
+        return withLock(lock.readLock(), () -> delegate.getPrioritizedTasksAfter(startTime, id, to, limit));
+    }
+
+    @Override
+    public Instant findFreeWindow(Duration duration, Instant after) {
+        return withLock(lock.readLock(), () -> delegate.findFreeWindow(duration, after));
+    }
+
+    @Override
+    public List<TaskConflict> findConflicts() {
+        return withLock(lock.readLock(), delegate::findConflicts);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return withLock(lock.readLock(), delegate::toString);
+    }
+
+    private static class Command<T> {
+        final Function<TaskManager, T> operation;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        Throwable error;
+
+        public Command(Function<TaskManager, T> operation) {
+            this.operation = operation;
+        }
+
+        void apply(TaskManager manager) {
+            try {
+                result = operation.apply(manager);
+            } catch (Throwable e) {
+                error = e; //ошибка одной команды не останавливает писателя
+            }
+        }
+
+        void complete(Throwable saveError) {
+            //результат отдается только после записи пакета в файл
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (saveError != null) {
+                future.completeExceptionally(saveError);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package manager;
+
+import tasks.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionHistoryManager implements HistoryManager {
+    public static final String DEFAULT_CLIENT = "default";
+    private static final ThreadLocal<String> CURRENT_CLIENT = new ThreadLocal<>(); //задается фильтром на время запроса
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>(); //сессии разных клиентов не мешают друг другу
+    private final int sessionCapacity;
+    private final int maxSessions; //общий лимит памяти: не больше maxTotalEntries просмотров на все сессии
+    private final Duration idleTimeout;
+    private final Clock clock;
+    private final AtomicLong lastSweep;
+
+    public SessionHistoryManager(int sessionCapacity, int maxTotalEntries, Duration idleTimeout) {
+        this(sessionCapacity, maxTotalEntries, idleTimeout, Clock.systemUTC());
+    }
+
+    public SessionHistoryManager(int sessionCapacity, int maxTotalEntries, Duration idleTimeout, Clock clock) {
+        if (sessionCapacity <= 0 || maxTotalEntries < sessionCapacity) {
+            throw new IllegalArgumentException("Некорректные ограничения размера истории");
+        }
+        this.sessionCapacity = sessionCapacity;
+        this.maxSessions = maxTotalEntries / sessionCapacity;
+        this.idleTimeout = idleTimeout;
+        this.clock = clock;
+        this.lastSweep = new AtomicLong(clock.millis());
+    }
+
+    public static void setCurrentClient(String clientId) {
+        CURRENT_CLIENT.set(clientId);
+    }
+
+    public static void clearCurrentClient() {
+        CURRENT_CLIENT.remove();
+    }
+
+    @Override
+    public void add(Task task) {
+        currentSession().history.add(task);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return currentSession().history.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return currentSession().history.getHistory(limit);
+    }
+
+    @Override
+    public void remove(int id) {
+        //удаленная задача пропадает из истории всех клиентов
+        for (Session session : sessions.values()) {
+            session.history.remove(id);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public void evictIdle() {
+        long deadline = clock.millis() - idleTimeout.toMillis();
+        sessions.values().removeIf(session -> session.lastAccess < deadline);
+    }
+
+    private Session currentSession() {
+        String clientId = CURRENT_CLIENT.get();
+        String key = clientId == null ? DEFAULT_CLIENT : clientId;
+        sweepIfDue();
+        while (true) {
+            Session session = sessions.get(key);
+            if (session != null) {
+                session.lastAccess = clock.millis();
+                return session;
+            }
+            session = sessions.computeIfAbsent(key, id -> new Session(
+                    new SynchronizedHistoryManager(Managers.getDefaultHistory(sessionCapacity))));
+            if (sessions.size() > maxSessions) {
+                evictIdle();
+                evictLeastRecent(key);
+            }
+            if (sessions.get(key) == session) {
+                return session;
+            }
+            //новую сессию вытеснил другой клиент, создававший свою одновременно: просмотр не должен уйти в нее
+        }
+    }
+
+    private void sweepIfDue() {
+        //просроченные сессии удаляются по ходу обращений, не чаще раза в половину таймаута
+        long now = clock.millis();
+        long last = lastSweep.get();
+        if (now - last >= Math.max(1, idleTimeout.toMillis() / 2) && lastSweep.compareAndSet(last, now)) {
+            evictIdle();
+        }
+    }
+
+    private void evictLeastRecent(String keep) {
+        while (sessions.size() > maxSessions) {
+            Map.Entry<String, Session> oldest = null;
+            for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+                if (!entry.getKey().equals(keep)
+                        && (oldest == null || entry.getValue().lastAccess < oldest.getValue().lastAccess)) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            sessions.remove(oldest.getKey(), oldest.getValue()); //сессию, созданную заново под тем же ключом, не трогаем
+        }
+    }
+
+    private class Session {
+        final HistoryManager history;
+        volatile long lastAccess = clock.millis();
+
+        public Session(HistoryManager history) {
+            this.history = history;
+        }
+    }
+}
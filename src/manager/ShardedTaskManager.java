@@ -0,0 +1,430 @@
+package manager;
+
+import exception.TaskNotFoundException;
+import tasks.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class ShardedTaskManager implements TaskManager {
+    private static final String TASK_NOT_FOUND = "Задача с id %d не найдена";
+    private static final String EPIC_NOT_FOUND = "Эпик с id %d не найден";
+    private static final String SUBTASK_NOT_FOUND = "Подзадача с id %d не найдена";
+    private static final Comparator<Task> BY_START = Comparator.comparing(Task::getStartTime)
+            .thenComparing(Task::getId);
+    //порядок захвата: bulkLock -> блокировка шарда -> scheduleLock
+    private final ReadWriteLock bulkLock = new ReentrantReadWriteLock(); //write только для deleteAll*
+    private final Lock scheduleLock = new ReentrantLock(); //общий на все шарды: пересечения проверяются глобально
+    private final Shard[] shards; //задачи и эпики по своему id, подзадачи по id эпика
+    private final Map<Integer, Integer> epicIdBySubtask = new ConcurrentHashMap<>();
+    private final IdAllocator idAllocator; //общий для всех шардов
+    private final ForkJoinPool pool;
+
+    public ShardedTaskManager(int shardCount) {
+        this(shardCount, new IntervalTree(), new AtomicIdAllocator(), ForkJoinPool.commonPool());
+    }
+
+    public ShardedTaskManager(int shardCount, ConflictChecker conflictChecker, IdAllocator idAllocator,
+                              ForkJoinPool pool) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Количество шардов должно быть больше нуля");
+        }
+        HistoryManager historyManager = Managers.getConcurrentHistory();
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(historyManager, conflictChecker, scheduleLock);
+        }
+        this.idAllocator = idAllocator;
+        this.pool = pool;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        int id = idAllocator.nextId();
+        Shard shard = shard(id);
+        return mutate(shard, task.getStartTime() != null, () -> shard.createWithId(id, () -> shard.createTask(task)));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        int id = idAllocator.nextId();
+        Shard shard = shard(id);
+        return mutate(shard, false, () -> shard.createWithId(id, () -> shard.createEpic(epic)));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        checkId(subtask.getEpicId(), "Не существует эпика с id %d");
+        int id = idAllocator.nextId();
+        Shard shard = shard(subtask.getEpicId());
+        return mutate(shard, subtask.getStartTime() != null, () -> {
+            Subtask created = shard.createWithId(id, () -> shard.createSubtask(subtask));
+            if (created.getId() != null) {
+                epicIdBySubtask.put(created.getId(), created.getEpicId()); //маршрут меняется вместе с шардом
+            }
+            return created;
+        });
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        checkId(task.getId(), TASK_NOT_FOUND);
+        Shard shard = shard(task.getId());
+        return mutate(shard, task.getStartTime() != null, () -> shard.updateTask(task));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        checkId(epic.getId(), EPIC_NOT_FOUND);
+        Shard shard = shard(epic.getId());
+        return mutate(shard, false, () -> shard.updateEpic(epic));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        checkId(subtask.getId(), SUBTASK_NOT_FOUND);
+        checkId(subtask.getEpicId(), SUBTASK_NOT_FOUND);
+        Shard shard = shard(subtask.getEpicId());
+        return mutate(shard, subtask.getStartTime() != null, () -> shard.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(Integer epicId) {
+        checkId(epicId, EPIC_NOT_FOUND);
+        Shard shard = shard(epicId);
+        return withLock(shard.lock.readLock(), () -> shard.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public Task deleteTaskById(Integer id) {
+        checkId(id, TASK_NOT_FOUND);
+        Shard shard = shard(id);
+        return mutate(shard, false, () -> shard.deleteTaskById(id));
+    }
+
+    @Override
+    public Epic deleteEpicById(Integer id) {
+        checkId(id, EPIC_NOT_FOUND);
+        Shard shard = shard(id);
+        return mutate(shard, false, () -> {
+            Epic deleted = shard.deleteEpicById(id);
+            deleted.forEachSubtaskId(epicIdBySubtask::remove);
+            return deleted;
+        });
+    }
+
+    @Override
+    public Subtask deleteSubtaskById(Integer id) {
+        Shard shard = shard(subtaskEpicId(id));
+        return mutate(shard, false, () -> {
+            Subtask deleted = shard.deleteSubtaskById(id);
+            epicIdBySubtask.remove(id);
+            return deleted;
+        });
+    }
+
+    @Override
+    public Task getTaskById(Integer id) {
+        checkId(id, TASK_NOT_FOUND);
+        Shard shard = shard(id);
+        return withLock(shard.lock.readLock(), () -> shard.getTaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(Integer id) {
+        checkId(id, EPIC_NOT_FOUND);
+        Shard shard = shard(id);
+        return withLock(shard.lock.readLock(), () -> shard.getEpicById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer id) {
+        Shard shard = shard(subtaskEpicId(id));
+        return withLock(shard.lock.readLock(), () -> shard.getSubtaskById(id));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return concat(fanOut(InMemoryTaskManager::getAllTasks));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return concat(fanOut(InMemoryTaskManager::getAllEpics));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return concat(fanOut(InMemoryTaskManager::getAllSubtasks));
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        forEachShard(InMemoryTaskManager::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        forEachShard(shard -> {
+            shard.deleteAllSubtasks();
+            epicIdBySubtask.clear();
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        forEachShard(shard -> {
+            shard.deleteAllEpics();
+            epicIdBySubtask.clear();
+        });
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return shards[0].getHistory(); //история общая для всех шардов
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return shards[0].getHistory(limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return merge(fanOut(InMemoryTaskManager::getPrioritizedTasks), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to, int limit) {
+        //каждый шард отдает не больше limit задач, итог собирается слиянием
+        return merge(fanOut(shard -> shard.getPrioritizedTasks(from, to, limit)), limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit) {
+        return merge(fanOut(shard -> shard.getPrioritizedTasksAfter(startTime, id, to, limit)), limit);
+    }
+
+    @Override
+    public Instant findFreeWindow(Duration duration, Instant after) {
+        //окно подходит, только если оно свободно во всех шардах: сдвигаем начало, пока все шарды не согласятся
+        return withLock(scheduleLock, () -> {
+            Instant windowStart = after;
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                for (Shard shard : shards) {
+                    Instant shardWindow = shard.findFreeWindow(duration, windowStart);
+                    if (shardWindow.isAfter(windowStart)) {
+                        windowStart = shardWindow;
+                        moved = true;
+                    }
+                }
+            }
+            return windowStart;
+        });
+    }
+
+    @Override
+    public List<TaskConflict> findConflicts() {
+        //пересечение может быть между задачами разных шардов, поэтому проход идет по всем задачам сразу
+        List<Task> scheduled = new ArrayList<>();
+        for (List<Task> shardTasks : fanOut(shard -> {
+            List<Task> shardScheduled = new ArrayList<>();
+            for (Task task : shard.getAllTasks()) {
+                if (task.getStartTime() != null) {
+                    shardScheduled.add(task);
+                }
+            }
+            for (Subtask subtask : shard.getAllSubtasks()) {
+                if (subtask.getStartTime() != null) {
+                    shardScheduled.add(subtask);
+                }
+            }
+            return shardScheduled;
+        })) {
+            scheduled.addAll(shardTasks);
+        }
+        return InMemoryTaskManager.findConflicts(scheduled);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    private <T> T mutate(Shard shard, boolean scheduled, Supplier<T> operation) {
+        //для задачи со временем проверка пересечений и вставка в индекс должны быть одной операцией
+        Supplier<T> scheduledOperation = scheduled ? () -> withLock(scheduleLock, operation) : operation;
+        return withLock(bulkLock.readLock(), () -> withLock(shard.lock.writeLock(), scheduledOperation));
+    }
+
+    private void forEachShard(Consumer<Shard> operation) {
+        withLock(bulkLock.writeLock(), () -> {
+            for (Shard shard : shards) {
+                withLock(shard.lock.writeLock(), () -> {
+                    operation.accept(shard);
+                    return null;
+                });
+            }
+            return null;
+        });
+    }
+
+    private <T> List<List<T>> fanOut(Function<Shard, List<T>> read) {
+        List<ForkJoinTask<List<T>>> parts = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            parts.add(pool.submit(() -> withLock(shard.lock.readLock(), () -> read.apply(shard))));
+        }
+        List<List<T>> results = new ArrayList<>(shards.length);
+        for (ForkJoinTask<List<T>> part : parts) {
+            results.add(part.join());
+        }
+        return results;
+    }
+
+    private static <T> List<T> concat(List<List<T>> parts) {
+        int size = 0;
+        for (List<T> part : parts) {
+            size += part.size();
+        }
+        List<T> result = new ArrayList<>(size);
+        for (List<T> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    private static List<Task> merge(List<List<Task>> sortedParts, int limit) {
+        //k-путевое слияние: в куче по одному текущему элементу от каждого шарда
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparing(Cursor::current, BY_START));
+        for (List<Task> part : sortedParts) {
+            if (!part.isEmpty()) {
+                heads.add(new Cursor(part));
+            }
+        }
+        List<Task> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private Shard shard(int id) {
+        return shards[Math.floorMod(id, shards.length)];
+    }
+
+    private int subtaskEpicId(Integer id) {
+        Integer epicId = id == null ? null : epicIdBySubtask.get(id);
+        if (epicId == null) {
+            throw new TaskNotFoundException(String.format(SUBTASK_NOT_FOUND, id));
+        }
+        return epicId;
+    }
+
+    private static <T> T withLock(Lock lock, Supplier<T> operation) {
+        lock.lock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void checkId(Integer id, String errorMessage) {
+        if (id == null) {
+            throw new TaskNotFoundException(String.format(errorMessage, id));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TaskManager{" +
+                "tasks=" + getAllTasks() +
+                ", epics=" + getAllEpics() +
+                ", subtasks=" + getAllSubtasks() +
+                '}';
+    }
+
+    private static class Cursor {
+        final List<Task> tasks;
+        int position = 0;
+
+        public Cursor(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        Task current() {
+            return tasks.get(position);
+        }
+
+        boolean advance() {
+            return ++position < tasks.size();
+        }
+    }
+
+    private static class Shard extends InMemoryTaskManager {
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Lock scheduleLock;
+        private int pendingId; //id выдается заранее, чтобы по нему выбрать шард
+
+        public Shard(HistoryManager historyManager, ConflictChecker conflictChecker, Lock scheduleLock) {
+            super(historyManager, conflictChecker, false);
+            this.scheduleLock = scheduleLock;
+        }
+
+        <T> T createWithId(int id, Supplier<T> create) {
+            pendingId = id;
+            return create.get();
+        }
+
+        @Override
+        protected int nextId() {
+            return pendingId;
+        }
+
+        @Override
+        protected boolean isNotCross(Task newTask) {
+            return withLock(scheduleLock, () -> super.isNotCross(newTask));
+        }
+
+        @Override
+        protected void addToPrioritized(Task task) {
+            withLock(scheduleLock, () -> {
+                super.addToPrioritized(task);
+                return null;
+            });
+        }
+
+        @Override
+        protected void removeFromPrioritized(Integer id) {
+            withLock(scheduleLock, () -> {
+                super.removeFromPrioritized(id);
+                return null;
+            });
+        }
+    }
+}
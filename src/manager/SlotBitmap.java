@@ -0,0 +1,320 @@
+package manager;
+
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class SlotBitmap implements ConflictChecker {
+    //проверка точная, пока в сетке лежат только непересекающиеся задачи: целиком занятый слот принадлежит одной задаче,
+    //а в частично занятых крайних слотах сравниваются точные интервалы их владельцев
+    private static final int PAGE_BITS = 12; //4096 слотов на страницу
+    private static final int WORDS_PER_PAGE = (1 << PAGE_BITS) / Long.SIZE;
+    private final long granularity;
+    private final Map<Long, long[]> fullPages = new HashMap<>(); //слоты, которые задача занимает целиком
+    private final Map<Long, long[]> partialPages = new HashMap<>(); //слоты, которые задачи занимают частично
+    private final Map<Long, List<Reservation>> partialOwners = new HashMap<>();
+    private final Map<Long, Integer> alignedEdges = new HashMap<>(); //сколько задач начинается или кончается на границе
+    private final Map<Integer, Reservation> reserved = new HashMap<>();
+    private final TreeMap<Instant, Integer> points = new TreeMap<>(); //задачи без длительности по моменту
+    private final Map<Integer, Instant> pointsById = new HashMap<>();
+
+    public SlotBitmap() {
+        this(Duration.ofMinutes(1));
+    }
+
+    public SlotBitmap(Duration granularity) {
+        if (granularity.getSeconds() <= 0) {
+            throw new IllegalArgumentException("Шаг сетки должен быть не меньше секунды");
+        }
+        this.granularity = granularity.getSeconds();
+    }
+
+    @Override
+    public void add(Task task) {
+        remove(task.getId());
+        Instant start = task.getStartTime();
+        Instant end = task.getEndTime();
+        if (!end.isAfter(start)) {
+            //задача без длительности не занимает слотов, но с ней пересекается интервал, строго ее содержащий
+            points.merge(start, 1, Integer::sum);
+            pointsById.put(task.getId(), start);
+            return;
+        }
+        Reservation reservation = reserve(task.getId(), start, end);
+        setRange(fullPages, reservation.fullFrom, reservation.fullTo, true);
+        for (long slot : reservation.partialSlots) {
+            partialOwners.computeIfAbsent(slot, key -> new ArrayList<>()).add(reservation);
+            setRange(partialPages, slot, slot + 1, true);
+        }
+        if (isAligned(start)) {
+            alignedEdges.merge(reservation.from, 1, Integer::sum);
+        }
+        if (isAligned(end)) {
+            alignedEdges.merge(reservation.to, 1, Integer::sum);
+        }
+        reserved.put(task.getId(), reservation);
+    }
+
+    @Override
+    public void remove(Integer id) {
+        Instant point = pointsById.remove(id);
+        if (point != null) {
+            points.computeIfPresent(point, (instant, count) -> count == 1 ? null : count - 1);
+            return;
+        }
+        Reservation reservation = reserved.remove(id);
+        if (reservation == null) {
+            return;
+        }
+        setRange(fullPages, reservation.fullFrom, reservation.fullTo, false);
+        for (long slot : reservation.partialSlots) {
+            List<Reservation> owners = partialOwners.get(slot);
+            owners.remove(reservation);
+            if (owners.isEmpty()) {
+                partialOwners.remove(slot);
+                setRange(partialPages, slot, slot + 1, false);
+            }
+        }
+        if (isAligned(reservation.start)) {
+            alignedEdges.computeIfPresent(reservation.from, (slot, count) -> count == 1 ? null : count - 1);
+        }
+        if (isAligned(reservation.end)) {
+            alignedEdges.computeIfPresent(reservation.to, (slot, count) -> count == 1 ? null : count - 1);
+        }
+    }
+
+    @Override
+    public boolean hasOverlap(Instant start, Instant end, Integer excludedId) {
+        Reservation own = excludedId == null ? null : reserved.get(excludedId);
+        if (!end.isAfter(start)) {
+            return hasTaskAround(start, own, excludedId);
+        }
+        Reservation probe = reserve(null, start, end);
+        //задача, занимающая слот целиком, пересекается с любым интервалом, заходящим в этот слот
+        if (isAnyFullSet(probe.from, probe.to, own)) {
+            return true;
+        }
+        //частично занятый слот, который интервал покрывает целиком, тоже означает пересечение
+        if (isAnyPartialSet(probe.fullFrom, probe.fullTo, start, end, own)) {
+            return true;
+        }
+        //в крайних слотах интервала сравниваются точные границы задач
+        for (long slot : probe.partialSlots) {
+            if (overlapsPartialOwner(slot, start, end, excludedId)) {
+                return true;
+            }
+        }
+        return hasPointInside(start, end, excludedId);
+    }
+
+    @Override
+    public void clear() {
+        fullPages.clear();
+        partialPages.clear();
+        partialOwners.clear();
+        alignedEdges.clear();
+        reserved.clear();
+        points.clear();
+        pointsById.clear();
+    }
+
+    private boolean hasTaskAround(Instant point, Reservation own, Integer excludedId) {
+        long slot = firstSlot(point);
+        if (!isAligned(point)) {
+            return isFullSet(slot, own) || overlapsPartialOwner(slot, point, point, excludedId);
+        }
+        //момент на границе слота лежит строго внутри задачи, только если она занимает слоты по обе стороны
+        //и не кончается на этой границе
+        return overlapsPartialOwner(slot - 1, point, point, excludedId)
+                || overlapsPartialOwner(slot, point, point, excludedId)
+                || (isFullSet(slot - 1, own) && isFullSet(slot, own) && !alignedEdges.containsKey(slot));
+    }
+
+    private boolean isFullSet(long slot, Reservation own) {
+        return (own == null || slot < own.fullFrom || slot >= own.fullTo) && isAnySet(fullPages, slot, slot + 1);
+    }
+
+    private boolean isAnyFullSet(long from, long to, Reservation own) {
+        if (own == null) {
+            return isAnySet(fullPages, from, to);
+        }
+        //целиком занятые слоты самой задачи при обновлении не принадлежат никому другому
+        return isAnySet(fullPages, from, Math.min(to, own.fullFrom))
+                || isAnySet(fullPages, Math.max(from, own.fullTo), to);
+    }
+
+    private boolean isAnyPartialSet(long from, long to, Instant start, Instant end, Reservation own) {
+        if (own == null) {
+            return isAnySet(partialPages, from, to);
+        }
+        //крайние слоты самой задачи могут быть общими с соседями, их владельцы проверяются по отдельности
+        long cursor = from;
+        for (long slot : own.partialSlots) {
+            if (slot < from || slot >= to) {
+                continue;
+            }
+            if (isAnySet(partialPages, cursor, slot) || overlapsPartialOwner(slot, start, end, own.id)) {
+                return true;
+            }
+            cursor = slot + 1;
+        }
+        return isAnySet(partialPages, cursor, to);
+    }
+
+    private boolean overlapsPartialOwner(long slot, Instant start, Instant end, Integer excludedId) {
+        List<Reservation> owners = partialOwners.get(slot);
+        if (owners == null) {
+            return false;
+        }
+        for (Reservation owner : owners) {
+            if (!owner.id.equals(excludedId) && owner.start.isBefore(end) && owner.end.isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasPointInside(Instant start, Instant end, Integer excludedId) {
+        Instant own = excludedId == null ? null : pointsById.get(excludedId);
+        for (Map.Entry<Instant, Integer> entry : points.subMap(start, false, end, false).entrySet()) {
+            int count = entry.getKey().equals(own) ? entry.getValue() - 1 : entry.getValue();
+            if (count > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Reservation reserve(Integer id, Instant start, Instant end) {
+        long from = firstSlot(start);
+        long to = lastSlot(end);
+        long fullFrom = isAligned(start) ? from : from + 1;
+        long fullTo = isAligned(end) ? to : to - 1;
+        long[] partialSlots;
+        if (fullFrom > fullTo) {
+            partialSlots = new long[]{from}; //интервал целиком внутри одного слота
+        } else if (!isAligned(start) && !isAligned(end)) {
+            partialSlots = new long[]{from, to - 1};
+        } else if (!isAligned(start)) {
+            partialSlots = new long[]{from};
+        } else if (!isAligned(end)) {
+            partialSlots = new long[]{to - 1};
+        } else {
+            partialSlots = new long[0];
+        }
+        return new Reservation(id, start, end, from, to, fullFrom, fullTo, partialSlots);
+    }
+
+    private boolean isAligned(Instant instant) {
+        return instant.getNano() == 0 && Math.floorMod(instant.getEpochSecond(), granularity) == 0;
+    }
+
+    private long firstSlot(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), granularity);
+    }
+
+    private long lastSlot(Instant instant) {
+        long seconds = instant.getEpochSecond() + (instant.getNano() > 0 ? 1 : 0);
+        return Math.floorDiv(seconds + granularity - 1, granularity);
+    }
+
+    private static boolean isAnySet(Map<Long, long[]> pages, long from, long to) {
+        long slot = from;
+        while (slot < to) {
+            long pageEnd = ((slot >> PAGE_BITS) + 1) << PAGE_BITS;
+            long end = Math.min(to, pageEnd);
+            long[] page = pages.get(slot >> PAGE_BITS);
+            if (page != null && isAnySetInPage(page, slot, end)) {
+                return true;
+            }
+            slot = end;
+        }
+        return false;
+    }
+
+    private static boolean isAnySetInPage(long[] page, long from, long to) {
+        int first = (int) (from & ((1 << PAGE_BITS) - 1));
+        int last = (int) ((to - 1) & ((1 << PAGE_BITS) - 1));
+        for (int word = first >> 6; word <= last >> 6; word++) {
+            if ((page[word] & mask(word, first, last)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void setRange(Map<Long, long[]> pages, long from, long to, boolean value) {
+        long slot = from;
+        while (slot < to) {
+            long pageIndex = slot >> PAGE_BITS;
+            long end = Math.min(to, (pageIndex + 1) << PAGE_BITS);
+            long[] page = pages.get(pageIndex);
+            if (page == null) {
+                if (!value) {
+                    slot = end;
+                    continue;
+                }
+                page = new long[WORDS_PER_PAGE];
+                pages.put(pageIndex, page);
+            }
+            int first = (int) (slot & ((1 << PAGE_BITS) - 1));
+            int last = (int) ((end - 1) & ((1 << PAGE_BITS) - 1));
+            for (int word = first >> 6; word <= last >> 6; word++) {
+                if (value) {
+                    page[word] |= mask(word, first, last);
+                } else {
+                    page[word] &= ~mask(word, first, last);
+                }
+            }
+            if (!value && isEmpty(page)) {
+                pages.remove(pageIndex);
+            }
+            slot = end;
+        }
+    }
+
+    private static long mask(int word, int first, int last) {
+        int from = Math.max(first, word << 6) & 63;
+        int to = Math.min(last, (word << 6) + 63) & 63;
+        long upper = to == 63 ? -1L : (1L << (to + 1)) - 1;
+        return upper & (-1L << from);
+    }
+
+    private static boolean isEmpty(long[] page) {
+        for (long word : page) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Reservation {
+        final Integer id;
+        final Instant start;
+        final Instant end;
+        final long from; //все задетые слоты [from, to)
+        final long to;
+        final long fullFrom; //слоты [fullFrom, fullTo), занятые целиком
+        final long fullTo;
+        final long[] partialSlots; //крайние слоты, занятые частично, по возрастанию
+
+        Reservation(Integer id, Instant start, Instant end, long from, long to, long fullFrom, long fullTo,
+                    long[] partialSlots) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+            this.fullFrom = fullFrom;
+            this.fullTo = fullTo;
+            this.partialSlots = partialSlots;
+        }
+    }
+}
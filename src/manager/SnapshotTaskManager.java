@@ -0,0 +1,470 @@
+package manager;
+
+import exception.TaskNotFoundException;
+import tasks.*;
+import util.PersistentTreeMap;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+public class SnapshotTaskManager implements TaskManager {
+    private final InMemoryTaskManager delegate; //изменяется только писателями под writeLock
+    private final HistoryManager historyManager;
+    private final ReentrantLock writeLock = new ReentrantLock(); //читатели блокировку не берут
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    public SnapshotTaskManager() {
+        this(new IntervalTree());
+    }
+
+    public SnapshotTaskManager(ConflictChecker conflictChecker) {
+        historyManager = Managers.getConcurrentHistory();
+        delegate = new InMemoryTaskManager(historyManager, conflictChecker, false);
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return write(() -> {
+            Task created = delegate.createTask(task);
+            publish(created.getId());
+            return created;
+        });
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return write(() -> {
+            Epic created = delegate.createEpic(epic);
+            publish(created.getId());
+            return created;
+        });
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return write(() -> {
+            Subtask created = delegate.createSubtask(subtask);
+            publish(created.getId(), created.getEpicId());
+            return created;
+        });
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        return write(() -> {
+            boolean updated = delegate.updateTask(task);
+            publish(task.getId());
+            return updated;
+        });
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        return write(() -> {
+            boolean updated = delegate.updateEpic(epic);
+            publish(epic.getId());
+            return updated;
+        });
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        return write(() -> {
+            boolean updated = delegate.updateSubtask(subtask);
+            publish(subtask.getId(), subtask.getEpicId());
+            return updated;
+        });
+    }
+
+    @Override
+    public Task deleteTaskById(Integer id) {
+        return write(() -> {
+            Task deleted = delegate.deleteTaskById(id);
+            publish(id);
+            return deleted;
+        });
+    }
+
+    @Override
+    public Epic deleteEpicById(Integer id) {
+        return write(() -> {
+            Epic deleted = delegate.deleteEpicById(id);
+            List<Integer> changedIds = new ArrayList<>(deleted.getSubtasksId());
+            changedIds.add(id);
+            publish(changedIds.toArray(new Integer[0]));
+            return deleted;
+        });
+    }
+
+    @Override
+    public Subtask deleteSubtaskById(Integer id) {
+        return write(() -> {
+            Subtask deleted = delegate.deleteSubtaskById(id);
+            publish(id, deleted.getEpicId());
+            return deleted;
+        });
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(() -> {
+            delegate.deleteAllTasks();
+            rebuild();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(() -> {
+            delegate.deleteAllSubtasks();
+            rebuild();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(() -> {
+            delegate.deleteAllEpics();
+            rebuild();
+            return null;
+        });
+    }
+
+    @Override
+    public Task getTaskById(Integer id) {
+        Task task = id == null ? null : snapshot.get().tasks.get(id);
+        if (task == null) {
+            throw new TaskNotFoundException(String.format("Задача с id %d не найдена", id));
+        }
+        return recordView(task);
+    }
+
+    @Override
+    public Epic getEpicById(Integer id) {
+        Snapshot current = snapshot.get();
+        Epic epic = id == null ? null : current.epics.get(id);
+        if (epic == null) {
+            throw new TaskNotFoundException(String.format("Эпик с id %d не найден", id));
+        }
+        return recordView(withSubtasks(epic, current));
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer id) {
+        Subtask subtask = id == null ? null : snapshot.get().subtasks.get(id);
+        if (subtask == null) {
+            throw new TaskNotFoundException(String.format("Подзадача с id %d не найдена", id));
+        }
+        return recordView(subtask);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(Integer epicId) {
+        Snapshot current = snapshot.get(); //эпик и его подзадачи читаются из одной версии
+        if (epicId == null || !current.epics.containsKey(epicId)) {
+            throw new TaskNotFoundException(String.format("Эпик с id %d не найден", epicId));
+        }
+        return toList(current.membersOf(epicId).values());
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return toList(snapshot.get().tasks.values());
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        Snapshot current = snapshot.get();
+        return toList(current.epics.values(), epic -> withSubtasks(epic, current));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return toList(snapshot.get().subtasks.values());
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyManager.getHistory(limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return toList(snapshot.get().prioritized.values());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to, int limit) {
+        PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized = snapshot.get().prioritized;
+        Iterable<Task> range = from == null
+                ? prioritized.values()
+                : prioritized.tailValues(new PrioritizedIndex.Key(from, Integer.MIN_VALUE));
+        return firstTasks(range, to, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit) {
+        PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized = snapshot.get().prioritized;
+        return firstTasks(prioritized.tailValues(new PrioritizedIndex.Key(startTime, id), false), to, limit);
+    }
+
+    private static List<Task> firstTasks(Iterable<Task> range, Instant to, int limit) {
+        List<Task> page = new ArrayList<>();
+        for (Task task : range) {
+            if (page.size() == limit || (to != null && !task.getStartTime().isBefore(to))) {
+                break;
+            }
+            page.add(task);
+        }
+        return page;
+    }
+
+    @Override
+    public Instant findFreeWindow(Duration duration, Instant after) {
+        PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized = snapshot.get().prioritized;
+        PrioritizedIndex.Key key = new PrioritizedIndex.Key(after, Integer.MIN_VALUE);
+        return InMemoryTaskManager.findFreeWindow(duration, after, prioritized.lowerValue(key),
+                prioritized.tailValues(key));
+    }
+
+    @Override
+    public List<TaskConflict> findConflicts() {
+        //отчет проверяет живые объекты, которые могли измениться в обход менеджера, а не копии снимка
+        return write(delegate::findConflicts);
+    }
+
+    private <T extends Task> T recordView(T task) {
+        //просмотр пишется без блокировки: если задачу удалили после чтения снимка, писатель мог уже
+        //очистить историю, поэтому после записи видимость проверяется по последней версии
+        historyManager.add(task);
+        if (!snapshot.get().contains(task.getId())) {
+            historyManager.remove(task.getId());
+        }
+        return task;
+    }
+
+    private <T> T write(Supplier<T> operation) {
+        writeLock.lock();
+        try {
+            return operation.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void publish(Integer... changedIds) {
+        //новая версия собирается из старой: копируются только изменившиеся записи и пути к ним
+        Snapshot current = snapshot.get();
+        PersistentTreeMap<Integer, Task> tasks = current.tasks;
+        PersistentTreeMap<Integer, Epic> epics = current.epics;
+        PersistentTreeMap<Integer, Subtask> subtasks = current.subtasks;
+        PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized = current.prioritized;
+        PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> members = current.members;
+        for (Integer id : changedIds) {
+            if (id == null) {
+                continue; //задача не создана из-за пересечения
+            }
+            Task old = tasks.containsKey(id) ? tasks.get(id) : subtasks.get(id);
+            if (old != null && old.getStartTime() != null) {
+                prioritized = prioritized.remove(new PrioritizedIndex.Key(old.getStartTime(), id));
+            }
+            if (old instanceof Subtask oldSubtask) {
+                members = putMembers(members, oldSubtask.getEpicId(),
+                        membersOf(members, oldSubtask.getEpicId()).remove(id));
+            }
+            tasks = tasks.remove(id);
+            epics = epics.remove(id);
+            subtasks = subtasks.remove(id);
+            if (delegate.tasks.containsKey(id)) {
+                Task copy = copyTask(delegate.tasks.get(id));
+                tasks = tasks.put(id, copy);
+                prioritized = putPrioritized(prioritized, copy);
+            } else if (delegate.epics.containsKey(id)) {
+                //состав эпика хранится отдельно и разделяется между версиями, копируются только поля эпика
+                epics = epics.put(id, copyEpic(delegate.epics.get(id)));
+            } else if (delegate.subtasks.containsKey(id)) {
+                Subtask copy = copySubtask(delegate.subtasks.get(id));
+                subtasks = subtasks.put(id, copy);
+                prioritized = putPrioritized(prioritized, copy);
+                members = putMembers(members, copy.getEpicId(), membersOf(members, copy.getEpicId()).put(id, copy));
+            } else {
+                members = members.remove(id); //удаленный эпик
+            }
+        }
+        Snapshot next = new Snapshot(tasks, epics, subtasks, prioritized, members);
+        snapshot.set(next);
+        forgetRemoved(Arrays.asList(changedIds), next);
+    }
+
+    private void rebuild() {
+        Snapshot current = snapshot.get();
+        PersistentTreeMap<Integer, Task> tasks = PersistentTreeMap.empty();
+        PersistentTreeMap<Integer, Epic> epics = PersistentTreeMap.empty();
+        PersistentTreeMap<Integer, Subtask> subtasks = PersistentTreeMap.empty();
+        PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized = PersistentTreeMap.empty();
+        PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> members = PersistentTreeMap.empty();
+        for (Task task : delegate.tasks.values()) {
+            Task copy = copyTask(task);
+            tasks = tasks.put(copy.getId(), copy);
+            prioritized = putPrioritized(prioritized, copy);
+        }
+        for (Epic epic : delegate.epics.values()) {
+            epics = epics.put(epic.getId(), copyEpic(epic));
+        }
+        for (Subtask subtask : delegate.subtasks.values()) {
+            Subtask copy = copySubtask(subtask);
+            subtasks = subtasks.put(copy.getId(), copy);
+            prioritized = putPrioritized(prioritized, copy);
+            members = putMembers(members, copy.getEpicId(),
+                    membersOf(members, copy.getEpicId()).put(copy.getId(), copy));
+        }
+        Snapshot next = new Snapshot(tasks, epics, subtasks, prioritized, members);
+        snapshot.set(next);
+        forgetRemoved(current, next);
+    }
+
+    private void forgetRemoved(Snapshot previous, Snapshot next) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : previous.tasks.values()) {
+            ids.add(task.getId());
+        }
+        for (Epic epic : previous.epics.values()) {
+            ids.add(epic.getId());
+        }
+        for (Subtask subtask : previous.subtasks.values()) {
+            ids.add(subtask.getId());
+        }
+        forgetRemoved(ids, next);
+    }
+
+    private void forgetRemoved(List<Integer> ids, Snapshot next) {
+        //повторная очистка после публикации: просмотр, записанный по старой версии до этой очистки,
+        //удаляется здесь, а записанный после нее увидит новую версию в recordView
+        for (Integer id : ids) {
+            if (id != null && !next.contains(id)) {
+                historyManager.remove(id);
+            }
+        }
+    }
+
+    private static PersistentTreeMap<PrioritizedIndex.Key, Task> putPrioritized(
+            PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized, Task task) {
+        if (task.getStartTime() == null) {
+            return prioritized;
+        }
+        return prioritized.put(new PrioritizedIndex.Key(task.getStartTime(), task.getId()), task);
+    }
+
+    //в снимке лежат копии: объекты делегата продолжают меняться следующими писателями
+    private static Task copyTask(Task task) {
+        return new Task(task.getId(), task.getName(), task.getDescription(), task.getStatus(),
+                task.getDuration(), task.getStartTime());
+    }
+
+    private static Epic copyEpic(Epic epic) {
+        Epic copy = new Epic(epic.getId(), epic.getName(), epic.getDescription(), epic.getStatus(),
+                epic.getDuration(), epic.getStartTime());
+        copy.setEndTime(epic.getEndTime());
+        return copy;
+    }
+
+    private static Epic withSubtasks(Epic epic, Snapshot current) {
+        //список подзадач собирается при чтении: запись подзадачи не копирует состав эпика
+        Epic result = copyEpic(epic);
+        for (Subtask subtask : current.membersOf(epic.getId()).values()) {
+            result.updateSubtasksId(subtask.getId());
+        }
+        return result;
+    }
+
+    private static PersistentTreeMap<Integer, Subtask> membersOf(
+            PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> members, Integer epicId) {
+        PersistentTreeMap<Integer, Subtask> epicMembers = members.get(epicId);
+        return epicMembers == null ? PersistentTreeMap.empty() : epicMembers;
+    }
+
+    private static PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> putMembers(
+            PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> members, Integer epicId,
+            PersistentTreeMap<Integer, Subtask> epicMembers) {
+        return epicMembers.isEmpty() ? members.remove(epicId) : members.put(epicId, epicMembers);
+    }
+
+    private static Subtask copySubtask(Subtask subtask) {
+        return new Subtask(subtask.getId(), subtask.getName(), subtask.getDescription(), subtask.getStatus(),
+                subtask.getDuration(), subtask.getStartTime(), subtask.getEpicId());
+    }
+
+    private static <T> List<T> toList(Iterable<T> values, UnaryOperator<T> mapper) {
+        List<T> list = new ArrayList<>();
+        for (T value : values) {
+            list.add(mapper.apply(value));
+        }
+        return list;
+    }
+
+    private static <T> List<T> toList(Iterable<T> values) {
+        List<T> list = new ArrayList<>();
+        for (T value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        Snapshot current = snapshot.get();
+        return "TaskManager{" +
+                "tasks=" + toList(current.tasks.values()) +
+                ", epics=" + toList(current.epics.values(), epic -> withSubtasks(epic, current)) +
+                ", subtasks=" + toList(current.subtasks.values()) +
+                '}';
+    }
+
+    private static class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(PersistentTreeMap.empty(), PersistentTreeMap.empty(),
+                PersistentTreeMap.empty(), PersistentTreeMap.empty(), PersistentTreeMap.empty());
+        final PersistentTreeMap<Integer, Task> tasks;
+        final PersistentTreeMap<Integer, Epic> epics;
+        final PersistentTreeMap<Integer, Subtask> subtasks;
+        final PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized;
+        final PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> members; //подзадачи по id эпика
+
+        public Snapshot(PersistentTreeMap<Integer, Task> tasks, PersistentTreeMap<Integer, Epic> epics,
+                        PersistentTreeMap<Integer, Subtask> subtasks,
+                        PersistentTreeMap<PrioritizedIndex.Key, Task> prioritized,
+                        PersistentTreeMap<Integer, PersistentTreeMap<Integer, Subtask>> members) {
+            this.tasks = tasks;
+            this.epics = epics;
+            this.subtasks = subtasks;
+            this.prioritized = prioritized;
+            this.members = members;
+        }
+
+        PersistentTreeMap<Integer, Subtask> membersOf(Integer epicId) {
+            return SnapshotTaskManager.membersOf(members, epicId);
+        }
+
+        boolean contains(Integer id) {
+            return tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id);
+        }
+    }
+}
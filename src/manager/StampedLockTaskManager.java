@@ -0,0 +1,294 @@
+package manager;
+
+import tasks.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+public class StampedLockTaskManager implements TaskManager {
+    private static final int MAX_CACHED_KEYS = 1024; //ответов на запросы с параметрами в одном поколении кэша
+    private final TaskManager delegate;
+    private final boolean sharedHistoryReads; //история делегата потокобезопасна, get*ById можно выполнять под read lock
+    private final StampedLock lock = new StampedLock();
+    //без блокировки читаются только неизменяемые копии списков: структуры делегата могут меняться во время обхода
+    private volatile long version = 0;
+    private final Cached<Task> allTasks = new Cached<>();
+    private final Cached<Epic> allEpics = new Cached<>();
+    private final Cached<Subtask> allSubtasks = new Cached<>();
+    private final Cached<Task> prioritized = new Cached<>();
+    private final Keyed<Integer, List<Subtask>> epicSubtasks = new Keyed<>();
+    private final Keyed<List<Object>, List<Task>> prioritizedRanges = new Keyed<>();
+    private final Keyed<List<Object>, List<Task>> prioritizedPages = new Keyed<>();
+    private final Keyed<List<Object>, Instant> freeWindows = new Keyed<>();
+
+    public StampedLockTaskManager(TaskManager delegate) {
+        this(delegate, false);
+    }
+
+    public StampedLockTaskManager(TaskManager delegate, boolean threadSafeHistory) {
+        this.delegate = delegate;
+        this.sharedHistoryReads = threadSafeHistory;
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return write(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return write(() -> delegate.createEpic(epic));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return write(() -> delegate.createSubtask(subtask));
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        return write(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        return write(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        return write(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(Integer epicId) {
+        return cachedRead(epicSubtasks, epicId, () -> List.copyOf(delegate.getEpicSubtasks(epicId)));
+    }
+
+    @Override
+    public Task deleteTaskById(Integer id) {
+        return write(() -> delegate.deleteTaskById(id));
+    }
+
+    @Override
+    public Epic deleteEpicById(Integer id) {
+        return write(() -> delegate.deleteEpicById(id));
+    }
+
+    @Override
+    public Subtask deleteSubtaskById(Integer id) {
+        return write(() -> delegate.deleteSubtaskById(id));
+    }
+
+    @Override
+    public Task getTaskById(Integer id) {
+        return historyRead(() -> delegate.getTaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(Integer id) {
+        return historyRead(() -> delegate.getEpicById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer id) {
+        return historyRead(() -> delegate.getSubtaskById(id));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return cachedRead(allTasks, delegate::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return cachedRead(allEpics, delegate::getAllEpics);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return cachedRead(allSubtasks, delegate::getAllSubtasks);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        write(() -> {
+            delegate.deleteAllTasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        write(() -> {
+            delegate.deleteAllSubtasks();
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        write(() -> {
+            delegate.deleteAllEpics();
+            return null;
+        });
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyRead(delegate::getHistory);
+    }
+
+    @Override
+    public List<Task> getHistory(int limit) {
+        return historyRead(() -> delegate.getHistory(limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return cachedRead(prioritized, delegate::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(Instant from, Instant to, int limit) {
+        return cachedRead(prioritizedRanges, Arrays.asList(from, to, limit),
+                () -> List.copyOf(delegate.getPrioritizedTasks(from, to, limit)));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit) {
+        return cachedRead(prioritizedPages, Arrays.asList(startTime, id, to, limit),
+                () -> List.copyOf(delegate.getPrioritizedTasksAfter(startTime, id, to, limit)));
+    }
+
+    @Override
+    public Instant findFreeWindow(Duration duration, Instant after) {
+        return cachedRead(freeWindows, Arrays.asList(duration, after), () -> delegate.findFreeWindow(duration, after));
+    }
+
+    @Override
+    public List<TaskConflict> findConflicts() {
+        //отчет ищет задачи, измененные в обход менеджера, такие изменения не меняют version
+        return read(delegate::findConflicts);
+    }
+
+    private <T> List<T> cachedRead(Cached<T> cache, Supplier<List<T>> operation) {
+        long stamp = lock.tryOptimisticRead();
+        Cached.Entry<T> entry = cache.entry;
+        //копия, собранная после последней записи, актуальна: делегат при этом не обходится
+        if (stamp != 0 && entry != null && entry.version == version && lock.validate(stamp)) {
+            return entry.value; //неизменяемый список отдается без копирования
+        }
+        stamp = lock.readLock();
+        try {
+            List<T> value = List.copyOf(operation.get());
+            cache.entry = new Cached.Entry<>(version, value);
+            return value;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <K, V> V cachedRead(Keyed<K, V> cache, K key, Supplier<V> operation) {
+        long stamp = lock.tryOptimisticRead();
+        Keyed.Generation<K, V> generation = cache.generation;
+        V value = generation.values.get(key);
+        if (stamp != 0 && value != null && generation.version == version && lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            value = operation.get();
+            cache.store(version, key, value); //под read lock version не меняется
+            return value;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T read(Supplier<T> operation) {
+        long stamp = lock.readLock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T historyRead(Supplier<T> operation) {
+        return sharedHistoryReads ? read(operation) : exclusive(operation);
+    }
+
+    private <T> T exclusive(Supplier<T> operation) {
+        //просмотр меняет только историю, копии списков остаются актуальными
+        long stamp = lock.writeLock();
+        try {
+            return operation.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> operation) {
+        long stamp = lock.writeLock();
+        try {
+            return operation.get();
+        } finally {
+            version++; //сбрасывает все копии, даже если запись завершилась ошибкой на полпути
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return read(delegate::toString);
+    }
+
+    private static class Keyed<K, V> {
+        //ответы хранятся до первой записи: новая версия начинает пустое поколение
+        volatile Generation<K, V> generation = new Generation<>(-1);
+
+        synchronized void store(long version, K key, V value) {
+            if (generation.version != version) {
+                generation = new Generation<>(version);
+            }
+            if (generation.values.size() < MAX_CACHED_KEYS) {
+                generation.values.put(key, value);
+            }
+        }
+
+        private static class Generation<K, V> {
+            final long version;
+            final Map<K, V> values = new ConcurrentHashMap<>();
+
+            public Generation(long version) {
+                this.version = version;
+            }
+        }
+    }
+
+    private static class Cached<T> {
+        volatile Entry<T> entry;
+
+        private static class Entry<T> {
+            final long version;
+            final List<T> value;
+
+            public Entry(long version, List<T> value) {
+                this.version = version;
+                this.value = value;
+            }
+        }
+    }
+}
@@ -2,6 +2,9 @@ package manager;
 
 import tasks.*;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface TaskManager {
@@ -45,8 +48,25 @@ public interface TaskManager {
 
     List<Task> getHistory();
 
+    default List<Task> getHistory(int limit) {
+        List<Task> history = getHistory();
+        return new ArrayList<>(history.subList(Math.max(0, history.size() - limit), history.size()));
+    }
+
     List<Task> getPrioritizedTasks();
 
+    List<Task> getPrioritizedTasks(Instant from, Instant to, int limit);
+
+    List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit);
+
+    Instant findFreeWindow(Duration duration, Instant after);
+
+    List<TaskConflict> findConflicts();
+
+    default boolean isThreadSafe() {
+        return false;
+    }
+
     @Override
     String toString();
 }
@@ -0,0 +1,343 @@
+package manager;
+
+import exception.ManagerLoadFileException;
+import exception.ManagerSaveException;
+import tasks.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public final class WalTaskManager extends FileBackedTaskManager {
+    //записи журнала: "P,<строка CSV>" - задача создана или изменена, "D,<id>" - удалена, "C,<тип>" - удалены все,
+    //"N,<id>" - наибольший выданный id на момент снимка
+    private static final String PUT = "P";
+    private static final String DELETE = "D";
+    private static final String CLEAR = "C";
+    private static final String HIGH_WATER_MARK = "N";
+    private final File wal;
+    private final int checkpointThreshold;
+    private FileOutputStream walStream;
+    private BufferedWriter writer;
+    private int walRecords = 0;
+    private int highestId = 0; //переживает очистку журнала, чтобы id удаленных задач не выдавались повторно
+
+    public WalTaskManager(File data) {
+        this(data, new IntervalTree(), 10_000, false);
+    }
+
+    public WalTaskManager(File data, ConflictChecker conflictChecker, int checkpointThreshold) {
+        this(data, conflictChecker, checkpointThreshold, false);
+    }
+
+    private WalTaskManager(File data, ConflictChecker conflictChecker, int checkpointThreshold, boolean restore) {
+        super(data, conflictChecker, restore);
+        if (checkpointThreshold <= 0) {
+            throw new IllegalArgumentException("Размер журнала должен быть больше нуля");
+        }
+        this.wal = new File(data.getPath() + ".wal");
+        this.checkpointThreshold = checkpointThreshold;
+        if (!restore) {
+            //новый менеджер сразу пишет пустой снимок и "N,0": иначе его журнал применился бы к старому снимку
+            writeCheckpoint();
+        }
+    }
+
+    public static WalTaskManager load(File data) {
+        return load(data, new IntervalTree(), 10_000);
+    }
+
+    public static WalTaskManager load(File data, ConflictChecker conflictChecker, int checkpointThreshold) {
+        WalTaskManager manager = new WalTaskManager(data, conflictChecker, checkpointThreshold, true);
+        Replay replay = new Replay();
+        int lastId = 0;
+        try {
+            if (data.exists()) {
+                for (String line : Files.readAllLines(data.toPath())) {
+                    replay.put(line);
+                }
+            }
+            if (manager.wal.exists()) {
+                //снимок + хвост журнала; повторное применение журнала к более новому снимку дает то же состояние
+                for (String record : Files.readAllLines(manager.wal.toPath())) {
+                    if (!record.isBlank()) {
+                        lastId = Math.max(lastId, replay.apply(record));
+                        manager.walRecords++;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            String errorMessage = "Ошибка чтения журнала изменений " + e.getMessage();
+            System.out.println(errorMessage);
+            throw new ManagerLoadFileException(errorMessage);
+        }
+        Map<Integer, String> rows = replay.rows;
+        rows.remove(-1); //заголовок CSV
+        manager.loadRows(rows.values());
+        for (int id : rows.keySet()) {
+            lastId = Math.max(lastId, id);
+        }
+        manager.highestId = lastId;
+        manager.idAllocator.advanceTo(lastId); //id удаленных задач тоже не выдаются повторно
+        manager.restoreHistory();
+        return manager;
+    }
+
+    public int getWalRecords() {
+        return walRecords;
+    }
+
+    public void checkpoint() {
+        writeCheckpoint();
+    }
+
+    private void writeCheckpoint() {
+        closeWriter();
+        writeSnapshot(true); //снимок записан на диск до очистки журнала: сбой между шагами не теряет изменений
+        try {
+            File temp = new File(wal.getPath() + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write((HIGH_WATER_MARK + "," + highestId + System.lineSeparator())
+                        .getBytes(StandardCharsets.UTF_8));
+                out.getChannel().force(true);
+            }
+            Files.move(temp.toPath(), wal.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            String errorMessage = "Ошибка при очистке журнала изменений " + e.getMessage();
+            System.out.println(errorMessage);
+            throw new ManagerSaveException(errorMessage);
+        }
+        walRecords = 0;
+    }
+
+    @Override
+    public void close() {
+        closeWriter();
+        super.close();
+    }
+
+    @Override
+    protected void persist() {
+        //вызывается один раз на изменение или на пакет: в файл уходят только новые записи журнала
+        try {
+            if (writer != null) {
+                writer.flush();
+                walStream.getChannel().force(false); //без force запись осталась бы только в кэше ОС
+            }
+        } catch (IOException e) {
+            String errorMessage = "Ошибка при записи журнала изменений " + e.getMessage();
+            System.out.println(errorMessage);
+            throw new ManagerSaveException(errorMessage);
+        }
+        if (walRecords > Math.max(checkpointThreshold, tasks.size() + epics.size() + subtasks.size())) {
+            checkpoint(); //полная перезапись амортизируется: она не чаще, чем раз в размер данных
+        }
+    }
+
+    private static int parseId(String row) {
+        String id = row.substring(0, row.indexOf(','));
+        return id.equals("id") ? -1 : Integer.parseInt(id);
+    }
+
+    private static TaskTypes parseType(String row) {
+        String type = row.split(",")[1];
+        return type.equals("type") ? null : TaskTypes.valueOf(type);
+    }
+
+    private <T> T logged(Supplier<T> mutation, Function<T, String> toRecord) {
+        //пакет нужен, чтобы запись журнала попала в файл до persist
+        beginBatch();
+        try {
+            T result = mutation.get();
+            if (result instanceof Task created && created.getId() != null) {
+                highestId = Math.max(highestId, created.getId());
+            }
+            String record = toRecord.apply(result);
+            if (record != null) {
+                append(record);
+            }
+            return result;
+        } finally {
+            endBatch();
+        }
+    }
+
+    private void append(String record) {
+        try {
+            if (writer == null) {
+                walStream = new FileOutputStream(wal, true);
+                writer = new BufferedWriter(new OutputStreamWriter(walStream, StandardCharsets.UTF_8));
+            }
+            writer.write(record);
+            writer.newLine();
+            walRecords++;
+        } catch (IOException e) {
+            String errorMessage = "Ошибка при записи журнала изменений " + e.getMessage();
+            System.out.println(errorMessage);
+            throw new ManagerSaveException(errorMessage);
+        }
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.out.println("Ошибка при записи журнала изменений " + e.getMessage());
+        }
+        writer = null;
+        walStream = null;
+    }
+
+    private static String put(Task stored) {
+        return stored == null ? null : PUT + "," + stored;
+    }
+
+    private static String delete(Task deleted) {
+        return deleted == null ? null : DELETE + "," + deleted.getId();
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return logged(() -> super.createTask(task), created -> put(tasks.get(created.getId())));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return logged(() -> super.createEpic(epic), created -> put(epics.get(created.getId())));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return logged(() -> super.createSubtask(subtask), created -> put(subtasks.get(created.getId())));
+    }
+
+    @Override
+    public boolean updateTask(Task task) {
+        return logged(() -> super.updateTask(task), updated -> updated ? put(tasks.get(task.getId())) : null);
+    }
+
+    @Override
+    public boolean updateEpic(Epic epic) {
+        return logged(() -> super.updateEpic(epic), updated -> updated ? put(epics.get(epic.getId())) : null);
+    }
+
+    @Override
+    public boolean updateSubtask(Subtask subtask) {
+        return logged(() -> super.updateSubtask(subtask),
+                updated -> updated ? put(subtasks.get(subtask.getId())) : null);
+    }
+
+    @Override
+    public Task deleteTaskById(Integer id) {
+        return logged(() -> super.deleteTaskById(id), WalTaskManager::delete);
+    }
+
+    @Override
+    public Epic deleteEpicById(Integer id) {
+        return logged(() -> super.deleteEpicById(id), WalTaskManager::delete);
+    }
+
+    @Override
+    public Subtask deleteSubtaskById(Integer id) {
+        return logged(() -> super.deleteSubtaskById(id), WalTaskManager::delete);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        logged(() -> {
+            super.deleteAllTasks();
+            return null;
+        }, ignored -> CLEAR + "," + TaskTypes.TASK);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        logged(() -> {
+            super.deleteAllSubtasks();
+            return null;
+        }, ignored -> CLEAR + "," + TaskTypes.SUBTASK);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        logged(() -> {
+            super.deleteAllEpics();
+            return null;
+        }, ignored -> CLEAR + "," + TaskTypes.EPIC);
+    }
+
+    private static class Replay {
+        final Map<Integer, String> rows = new LinkedHashMap<>();
+        //подзадачи по эпикам: удаление эпика не просматривает все строки
+        final Map<Integer, Set<Integer>> subtasksByEpic = new HashMap<>();
+
+        void put(String row) {
+            int id = parseId(row);
+            unlinkSubtask(id, rows.put(id, row));
+            String[] note = row.split(",");
+            if (!note[1].equals("type") && TaskTypes.valueOf(note[1]) == TaskTypes.SUBTASK) {
+                subtasksByEpic.computeIfAbsent(Integer.parseInt(note[7]), epicId -> new HashSet<>()).add(id);
+            }
+        }
+
+        int apply(String record) {
+            String[] parts = record.split(",", 2);
+            switch (parts[0]) {
+                case PUT:
+                    put(parts[1]);
+                    return parseId(parts[1]);
+                case DELETE:
+                    int deletedId = Integer.parseInt(parts[1]);
+                    String deleted = rows.remove(deletedId);
+                    if (deleted != null && parseType(deleted) == TaskTypes.EPIC) {
+                        //подзадачи удаленного эпика удаляются вместе с ним
+                        Set<Integer> subtaskIds = subtasksByEpic.remove(deletedId);
+                        if (subtaskIds != null) {
+                            rows.keySet().removeAll(subtaskIds);
+                        }
+                    } else {
+                        unlinkSubtask(deletedId, deleted);
+                    }
+                    return deletedId;
+                case HIGH_WATER_MARK:
+                    return Integer.parseInt(parts[1]);
+                case CLEAR:
+                    TaskTypes type = TaskTypes.valueOf(parts[1]);
+                    rows.values().removeIf(row -> {
+                        TaskTypes rowType = parseType(row);
+                        return rowType == type || (type == TaskTypes.EPIC && rowType == TaskTypes.SUBTASK);
+                    });
+                    if (type != TaskTypes.TASK) {
+                        subtasksByEpic.clear();
+                    }
+                    return 0;
+                default:
+                    throw new IllegalArgumentException("Неизвестная запись журнала: " + record);
+            }
+        }
+
+        private void unlinkSubtask(int id, String row) {
+            if (row == null || parseType(row) != TaskTypes.SUBTASK) {
+                return;
+            }
+            Set<Integer> subtaskIds = subtasksByEpic.get(Integer.parseInt(row.split(",")[7]));
+            if (subtaskIds != null) {
+                subtaskIds.remove(id);
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package tasks;
 
+import util.IntLinkedHashSet;
+
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private final ArrayList<Integer> subtasksId = new ArrayList<>();
+    private final IntLinkedHashSet subtasksId = new IntLinkedHashSet();
     private Instant endTime;
 
     public Epic(String name, String description) {
@@ -31,8 +34,16 @@ public class Epic extends Task {
         subtasksId.add(id);
     }
 
-    public ArrayList<Integer> getSubtasksId() {
-        return new ArrayList<>(subtasksId);
+    public Collection<Integer> getSubtasksId() {
+        return subtasksId.asCollection(); //представление только для чтения, без копирования
+    }
+
+    public int getSubtasksCount() {
+        return subtasksId.size();
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        subtasksId.forEach(action);
     }
 
     public void deleteSubtaskId(Integer id) {
@@ -0,0 +1,27 @@
+package tasks;
+
+public class TaskConflict {
+    private final Task first;
+    private final Task second;
+
+    public TaskConflict(Task first, Task second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public Task getFirst() {
+        return first;
+    }
+
+    public Task getSecond() {
+        return second;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskConflict{" +
+                "first=" + first.getId() +
+                ", second=" + second.getId() +
+                '}';
+    }
+}
@@ -0,0 +1,146 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+public class IntLinkedHashSet {
+    private static final int NONE = -1;
+    private final IntIntHashMap slotsByValue = new IntIntHashMap(); //значение -> номер ячейки
+    private int[] values = new int[8];
+    private int[] prev = new int[8];
+    private int[] next = new int[8];
+    private int head = NONE;
+    private int tail = NONE;
+    private int freeSlot = NONE; //список свободных ячеек связан через next
+    private int used = 0; //сколько ячеек выделялось хотя бы раз
+    private int size = 0;
+    private final Collection<Integer> view = new ReadOnlyView();
+
+    public boolean add(int value) {
+        if (slotsByValue.containsKey(value)) {
+            return false;
+        }
+        int slot = allocateSlot();
+        values[slot] = value;
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+        slotsByValue.put(value, slot);
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int slot = slotsByValue.remove(value, NONE);
+        if (slot == NONE) {
+            return false;
+        }
+        if (prev[slot] == NONE) {
+            head = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            tail = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        size--;
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return slotsByValue.containsKey(value);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        slotsByValue.clear();
+        head = NONE;
+        tail = NONE;
+        freeSlot = NONE;
+        used = 0;
+        size = 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            action.accept(values[slot]);
+        }
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int slot = head;
+
+            @Override
+            public boolean hasNext() {
+                return slot != NONE;
+            }
+
+            @Override
+            public int nextInt() {
+                if (slot == NONE) {
+                    throw new NoSuchElementException();
+                }
+                int value = values[slot];
+                slot = next[slot];
+                return value;
+            }
+        };
+    }
+
+    public Collection<Integer> asCollection() {
+        return view;
+    }
+
+    private int allocateSlot() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = next[slot];
+            return slot;
+        }
+        if (used == values.length) {
+            int capacity = values.length * 2;
+            values = Arrays.copyOf(values, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        return used++;
+    }
+
+    private class ReadOnlyView extends AbstractCollection<Integer> {
+        @Override
+        public PrimitiveIterator.OfInt iterator() {
+            return IntLinkedHashSet.this.iterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer value && IntLinkedHashSet.this.contains(value);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Task;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrayHistoryManagerTest {
+
+    @Test
+    void keepsMostRecentUniqueOrderWithinCapacity() {
+        Map<Integer, Task> tasks = new HashMap<>();
+        for (int id = 1; id <= 5; id++) {
+            tasks.put(id, new Task(id, "Task" + id, "Description", Status.NEW));
+        }
+        ArrayHistoryManager historyManager = new ArrayHistoryManager(3, tasks::get);
+        for (int id = 1; id <= 4; id++) {
+            historyManager.add(tasks.get(id));
+        }
+        historyManager.add(tasks.get(2));
+        historyManager.remove(3);
+        historyManager.add(tasks.get(5));
+        historyManager.add(tasks.get(1));
+
+        assertEquals(3, historyManager.size());
+        assertEquals(List.of(2, 5, 1), historyManager.getHistory().stream().map(Task::getId).toList());
+        assertEquals(List.of(5, 1), historyManager.getHistory(2).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void resolvesCurrentStateFromManager() {
+        TaskManager manager = Managers.getDefaultWithArrayHistory(16);
+        Task task = manager.createTask(new Task("Task", "Description", Status.NEW));
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        manager.getTaskById(task.getId());
+        manager.getEpicById(epic.getId());
+
+        manager.updateTask(new Task(task.getId(), "Task", "Description", Status.DONE));
+        manager.deleteEpicById(epic.getId());
+
+        List<Task> history = manager.getHistory();
+        assertEquals(1, history.size());
+        assertEquals(Status.DONE, history.getFirst().getStatus());
+    }
+}
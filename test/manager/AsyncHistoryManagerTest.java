@@ -0,0 +1,60 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHistoryManagerTest {
+
+    @Test
+    void getHistoryFlushesPendingViews() {
+        try (AsyncHistoryManager historyManager = AsyncHistoryManager.start(new InMemoryHistoryManager(), 8,
+                AsyncHistoryManager.OverflowPolicy.COALESCE)) {
+            for (int i = 0; i < 100; i++) {
+                historyManager.add(new Task(i % 5, "Task", "Description", Status.NEW));
+            }
+            historyManager.add(new Task(2, "Task", "Description", Status.NEW));
+            historyManager.remove(4);
+
+            assertEquals(List.of(0, 1, 3, 2), historyManager.getHistory().stream().map(Task::getId).toList());
+            assertEquals(0, historyManager.getDroppedCount());
+        }
+    }
+
+    @Test
+    void dropPolicyDiscardsViewsWhenBufferIsFull() {
+        HistoryManager slow = new InMemoryHistoryManager() {
+            @Override
+            public void add(Task task) {
+                LockSupport.parkNanos(1_000_000);
+                super.add(task);
+            }
+        };
+        try (AsyncHistoryManager historyManager = AsyncHistoryManager.start(slow, 2,
+                AsyncHistoryManager.OverflowPolicy.DROP)) {
+            for (int i = 0; i < 50; i++) {
+                historyManager.add(new Task(i, "Task", "Description", Status.NEW));
+            }
+            int recorded = historyManager.getHistory().size();
+            assertTrue(historyManager.getDroppedCount() > 0, "Просмотры не отбрасываются");
+            assertEquals(50, recorded + historyManager.getDroppedCount());
+        }
+    }
+
+    @Test
+    void managerRecordsViewsAsynchronously() {
+        try (AsyncHistoryTaskManager manager = Managers.getDefaultWithAsyncHistory(16,
+                AsyncHistoryManager.OverflowPolicy.COALESCE)) {
+            Task task = manager.createTask(new Task("Task", "Description", Status.NEW));
+            manager.getTaskById(task.getId());
+
+            assertEquals(List.of(task.getId()), manager.getHistory().stream().map(Task::getId).toList());
+            assertEquals(0, manager.getDroppedViews());
+        }
+    }
+}
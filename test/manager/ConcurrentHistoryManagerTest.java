@@ -0,0 +1,122 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHistoryManagerTest {
+
+    @Test
+    void keepsMostRecentUniqueOrder() {
+        HistoryManager historyManager = Managers.getConcurrentHistory();
+        for (int id = 1; id <= 3; id++) {
+            historyManager.add(new Task(id, "Task" + id, "Description", Status.NEW));
+        }
+        historyManager.add(new Task(1, "Task1", "Description", Status.DONE));
+        historyManager.remove(2);
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(3, history.getFirst().getId());
+        assertEquals(1, history.getLast().getId());
+        assertEquals(Status.DONE, history.getLast().getStatus());
+    }
+
+    @Test
+    void concurrentViewsKeepOneEntryPerTask() throws Exception {
+        HistoryManager historyManager = Managers.getConcurrentHistory();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    historyManager.add(new Task(i % 100, "Task", "Description", Status.NEW));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        historyManager.add(new Task(42, "Task", "Description", Status.NEW));
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(100, history.size());
+        assertEquals(42, history.getLast().getId());
+    }
+
+    @Test
+    void evictsOldestViewWhenFull() {
+        HistoryManager historyManager = Managers.getConcurrentHistory(3);
+        for (int id = 1; id <= 3; id++) {
+            historyManager.add(new Task(id, "Task" + id, "Description", Status.NEW));
+        }
+        historyManager.add(new Task(1, "Task1", "Description", Status.NEW));
+        historyManager.add(new Task(4, "Task4", "Description", Status.NEW));
+
+        assertEquals(List.of(3, 1, 4), historyManager.getHistory().stream().map(Task::getId).toList());
+        assertEquals(List.of(1, 4), historyManager.getHistory(2).stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void concurrentViewsStayWithinCapacity() throws Exception {
+        HistoryManager historyManager = Managers.getConcurrentHistory(10);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    historyManager.add(new Task(i % 100, "Task", "Description", Status.NEW));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(10, history.size());
+        assertEquals(10, history.stream().map(Task::getId).distinct().count());
+    }
+
+    @Test
+    void readsDuringMovesHaveNoDuplicates() throws Exception {
+        HistoryManager historyManager = Managers.getConcurrentHistory();
+        for (int id = 0; id < 50; id++) {
+            historyManager.add(new Task(id, "Task", "Description", Status.NEW));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean viewing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < 2; thread++) {
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    historyManager.add(new Task(i % 50, "Task", "Description", Status.NEW));
+                }
+            }));
+        }
+        Future<?> reader = executor.submit(() -> {
+            while (viewing.get()) {
+                List<Integer> ids = historyManager.getHistory().stream().map(Task::getId).toList();
+                assertEquals(ids.size(), new HashSet<>(ids).size(), "В истории повторяется задача: " + ids);
+            }
+        });
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        viewing.set(false);
+        reader.get();
+        executor.shutdown();
+    }
+}
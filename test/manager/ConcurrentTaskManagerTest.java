@@ -0,0 +1,93 @@
+package manager;
+
+import exception.TaskNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest {
+
+    @BeforeEach
+    public void initManager() {
+        manager = getTaskManager();
+    }
+
+    @Override
+    TaskManager getTaskManager() {
+        return Managers.getConcurrent();
+    }
+
+    @Test
+    void concurrentCreatesKeepStateConsistent() throws Exception {
+        ConcurrentTaskManager concurrentManager = (ConcurrentTaskManager) manager;
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание");
+            concurrentManager.createEpic(epic);
+            epics.add(epic);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            Epic epic = epics.get(thread);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    //все потоки претендуют на одни и те же 200 слотов
+                    concurrentManager.createTask(new Task("Task", "Description", Status.NEW,
+                            Duration.ofMinutes(10), start.plus(Duration.ofMinutes(10L * i))));
+                    concurrentManager.createSubtask(new Subtask("Подзадача", "Описание",
+                            i % 2 == 0 ? Status.NEW : Status.DONE, epic.getId()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(200, concurrentManager.getPrioritizedTasks().size());
+        assertEquals(1600, concurrentManager.getAllSubtasks().size());
+        assertTrue(concurrentManager.findConflicts().isEmpty());
+        assertTrue(concurrentManager.isPrioritizedIndexConsistent());
+        assertTrue(concurrentManager.isEpicStateConsistent());
+        for (Epic epic : epics) {
+            assertEquals(200, concurrentManager.getEpicSubtasks(epic.getId()).size());
+            assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        }
+    }
+
+    @Test
+    void viewRacingDeleteDoesNotReturnToHistory() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 200; i++) {
+            Task task = manager.createTask(new Task("Task" + i, "Description", Status.NEW));
+            Future<?> view = executor.submit(() -> {
+                try {
+                    manager.getTaskById(task.getId());
+                } catch (TaskNotFoundException ignored) {
+                    //удаление успело раньше просмотра
+                }
+            });
+            Future<?> delete = executor.submit(() -> manager.deleteTaskById(task.getId()));
+            view.get();
+            delete.get();
+        }
+        executor.shutdown();
+
+        assertTrue(manager.getHistory().isEmpty(), "В истории остались удаленные задачи");
+    }
+}
@@ -0,0 +1,33 @@
+package manager;
+
+import tasks.Status;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+public class ConflictCheckerBenchmark {
+    private static final int TASKS = 50_000;
+
+    public static void main(String[] args) {
+        for (int i = 0; i < 3; i++) {
+            run("interval tree", Managers::getIntervalTreeChecker);
+            run("slot bitmap", () -> Managers.getSlotBitmapChecker(Duration.ofMinutes(1)));
+        }
+    }
+
+    private static void run(String name, Supplier<ConflictChecker> checker) {
+        TaskManager manager = Managers.getDefault(checker.get());
+        Instant start = Instant.parse("2025-03-03T00:00:00Z");
+        long begin = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            //каждая вторая задача пересекается с предыдущей и отклоняется
+            Instant startTime = start.plus(Duration.ofMinutes(i * 10L - (i % 2) * 15L));
+            manager.createTask(new Task("Task" + i, "Description", Status.NEW, Duration.ofMinutes(20), startTime));
+        }
+        long elapsed = System.nanoTime() - begin;
+        System.out.printf("%s: %d задач за %d мс, в расписании %d%n", name, TASKS, elapsed / 1_000_000,
+                manager.getPrioritizedTasks().size());
+    }
+}
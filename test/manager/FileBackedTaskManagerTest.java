@@ -14,13 +14,17 @@ import tasks.Task;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class FileBackedTaskManagerTest extends TaskManagerTest {
     private File file;
+    private final List<FileBackedTaskManager> opened = new ArrayList<>(); //закрываются после теста
 
     @BeforeEach
     public void initManager() {
@@ -31,7 +35,7 @@ public class FileBackedTaskManagerTest extends TaskManagerTest {
     TaskManager getTaskManager() {
         try {
             file = File.createTempFile("dataTemp", ".csv");
-            return new FileBackedTaskManager(file);
+            return open(new FileBackedTaskManager(file));
         } catch (IOException e) {
             System.out.println("Ошибка при инициализации менеджера " + e.getMessage());
             throw new RuntimeException(e);
@@ -40,7 +44,7 @@ public class FileBackedTaskManagerTest extends TaskManagerTest {
 
     @Test
     void loadFromFile() {
-        manager = FileBackedTaskManager.loadFromFile(new File("test/manager/testData.csv"));
+        manager = open(FileBackedTaskManager.loadFromFile(copyFixture("testData.csv")));
         Duration duration1 = Duration.of(15, ChronoUnit.MINUTES);
         Instant startTime1 = Instant.parse("2025-03-03T12:15:00Z");
         Instant startTime2 = Instant.parse("2025-03-03T12:15:00Z");
@@ -48,9 +52,46 @@ public class FileBackedTaskManagerTest extends TaskManagerTest {
         assertEquals(new Subtask(6, "Subtask6", "Description6", Status.NEW, duration1, startTime2, 5), manager.getSubtaskById(6));
     }
 
+    @Test
+    void loadFromFileWithConflicts() {
+        FileBackedTaskManager loaded = open(FileBackedTaskManager.loadFromFile(copyFixture("conflictData.csv")));
+        manager = loaded;
+
+        assertEquals(List.of(1, 4), loaded.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(3, loaded.getRejectedRows().size());
+        assertEquals(Set.of(2, 5), loaded.getUnscheduledIds(), "Пересекающиеся строки остаются вне индекса");
+        assertTrue(loaded.getRejectedRows().stream().anyMatch(row -> row.startsWith("2,TASK")));
+        assertTrue(loaded.getRejectedRows().stream().anyMatch(row -> row.startsWith("6,SUBTASK")));
+        assertEquals(List.of(1, 2), loaded.getAllTasks().stream().map(Task::getId).sorted().toList());
+        assertEquals(List.of(4, 5), loaded.getEpicSubtasks(3).stream().map(Task::getId).toList());
+        assertEquals(2, loaded.findConflicts().size(), "Пересечения из файла должны попадать в отчет");
+        assertEquals(Status.IN_PROGRESS, loaded.getEpicById(3).getStatus());
+        assertEquals(Instant.parse("2025-03-03T12:55:00Z"), loaded.getEpicById(3).getEndTime());
+        assertTrue(loaded.isPrioritizedIndexConsistent());
+        assertTrue(loaded.isEpicStateConsistent());
+    }
+
+    @Test
+    void saveKeepsConflictingAndOrphanRows() {
+        FileBackedTaskManager loaded = open(FileBackedTaskManager.loadFromFile(copyFixture("conflictData.csv")));
+        manager = loaded;
+        loaded.createTask(new Task("Task7", "Description", Status.NEW));
+
+        FileBackedTaskManager reloaded = open(FileBackedTaskManager.loadFromFile(file));
+        assertEquals(List.of(1, 2, 7), reloaded.getAllTasks().stream().map(Task::getId).sorted().toList());
+        assertEquals(List.of(4, 5), reloaded.getAllSubtasks().stream().map(Task::getId).sorted().toList());
+        assertTrue(reloaded.getRejectedRows().stream().anyMatch(row -> row.startsWith("6,SUBTASK")));
+
+        Task conflicting = reloaded.getTaskById(2);
+        conflicting.setStartTime(Instant.parse("2025-03-03T14:00:00Z"));
+        assertTrue(reloaded.updateTask(conflicting));
+        assertEquals(List.of(1, 4, 2), reloaded.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertTrue(reloaded.isPrioritizedIndexConsistent());
+    }
+
     @Test
     void loadFromEmptyFile() {
-        manager = FileBackedTaskManager.loadFromFile(new File("test/manager/emptyData.csv"));
+        manager = open(FileBackedTaskManager.loadFromFile(copyFixture("emptyData.csv")));
         assertTrue(manager.getAllTasks().isEmpty());
         assertTrue(manager.getAllEpics().isEmpty());
         assertTrue(manager.getAllSubtasks().isEmpty());
@@ -261,14 +302,119 @@ public class FileBackedTaskManagerTest extends TaskManagerTest {
     public void testSaveInFileException() {
 
         assertThrows(ManagerSaveException.class, () -> {
-            manager = new FileBackedTaskManager(new File("\0"));
+            manager = open(new FileBackedTaskManager(new File("\0")));
             Task task = new Task("Задача 1", "Описание задачи 1", Status.NEW);
             manager.createTask(task);
         }, "Ожидается сообщение об ошибке записи в файл");
     }
 
+    private <T extends FileBackedTaskManager> T open(T fileManager) {
+        opened.add(fileManager);
+        return fileManager;
+    }
+
+    private File copyFixture(String name) {
+        //журнал истории создается рядом с файлом, поэтому тесты работают с копией
+        try {
+            Files.copy(new File("test/manager/" + name).toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @AfterEach
     void tearDown() {
+        for (FileBackedTaskManager fileManager : opened) {
+            fileManager.close();
+        }
         file.deleteOnExit();
+        new File(file.getPath() + ".history").deleteOnExit();
+    }
+
+    @Test
+    void restoreHistoryFromLog() {
+        Task task1 = manager.createTask(new Task("Task1", "Description", Status.NEW));
+        Task task2 = manager.createTask(new Task("Task2", "Description", Status.NEW));
+        Task task3 = manager.createTask(new Task("Task3", "Description", Status.NEW));
+        long savedLength = file.length();
+        manager.getTaskById(task1.getId());
+        manager.getTaskById(task2.getId());
+        manager.getTaskById(task3.getId());
+        manager.getTaskById(task1.getId());
+        assertEquals(savedLength, file.length(), "CSV не должен переписываться при просмотрах");
+        manager.deleteTaskById(task2.getId());
+        ((FileBackedTaskManager) manager).flushHistory();
+
+        FileBackedTaskManager loaded = open(FileBackedTaskManager.loadFromFile(file));
+
+        assertEquals(List.of(task3.getId(), task1.getId()),
+                loaded.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void compactedHistoryLogKeepsLatestViews() throws IOException {
+        FileBackedTaskManager fileManager = (FileBackedTaskManager) manager;
+        Task task1 = fileManager.createTask(new Task("Task1", "Description", Status.NEW));
+        Task task2 = fileManager.createTask(new Task("Task2", "Description", Status.NEW));
+        for (int i = 0; i < 1100; i++) {
+            fileManager.getTaskById(i % 2 == 0 ? task1.getId() : task2.getId());
+        }
+        fileManager.flushHistory(); //журнал длиннее порога сжатия переписывается текущей историей
+        fileManager.getTaskById(task1.getId());
+        fileManager.close();
+
+        File log = new File(file.getPath() + ".history");
+        assertEquals(List.of(String.valueOf(task1.getId()), String.valueOf(task2.getId()),
+                String.valueOf(task1.getId())), Files.readAllLines(log.toPath()));
+        FileBackedTaskManager loaded = open(FileBackedTaskManager.loadFromFile(file));
+        assertEquals(List.of(task2.getId(), task1.getId()), loaded.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void newManagerKeepsHistoryLogUntilFirstView() throws IOException {
+        Task task1 = manager.createTask(new Task("Task1", "Description", Status.NEW));
+        manager.getTaskById(task1.getId());
+        ((FileBackedTaskManager) manager).flushHistory();
+        File log = new File(file.getPath() + ".history");
+
+        FileBackedTaskManager fresh = open(new FileBackedTaskManager(file));
+
+        assertEquals(List.of(String.valueOf(task1.getId())), Files.readAllLines(log.toPath()),
+                "Создание менеджера не должно удалять журнал истории");
+        Task task2 = fresh.createTask(new Task("Task2", "Description", Status.NEW));
+        fresh.getTaskById(task2.getId());
+        fresh.flushHistory();
+        assertEquals(List.of(String.valueOf(task2.getId())), Files.readAllLines(log.toPath()),
+                "Первый просмотр нового менеджера заменяет старый журнал");
+    }
+
+    @Test
+    void freshManagerWithoutViewsDropsOldHistoryOnRestart() {
+        Task task1 = manager.createTask(new Task("Task1", "Description", Status.NEW));
+        manager.getTaskById(task1.getId());
+        ((FileBackedTaskManager) manager).flushHistory();
+
+        FileBackedTaskManager fresh = open(new FileBackedTaskManager(file));
+        fresh.createTask(new Task("Other", "Description", Status.NEW));
+        fresh.close();
+
+        FileBackedTaskManager loaded = open(FileBackedTaskManager.loadFromFile(file));
+        assertTrue(loaded.getHistory().isEmpty(), "Журнал старых данных не должен восстанавливаться");
+    }
+
+    @Test
+    void saveOncePerBatch() throws IOException {
+        FileBackedTaskManager fileManager = (FileBackedTaskManager) manager;
+        fileManager.beginBatch();
+        fileManager.createTask(new Task("Task1", "Description", Status.NEW));
+        fileManager.createTask(new Task("Task2", "Description", Status.NEW));
+        assertEquals(0, Files.readAllLines(file.toPath()).size());
+
+        fileManager.endBatch();
+
+        assertEquals(3, Files.readAllLines(file.toPath()).size());
+        assertThrows(IllegalStateException.class, fileManager::endBatch);
     }
 }
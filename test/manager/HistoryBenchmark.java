@@ -0,0 +1,45 @@
+package manager;
+
+import tasks.Status;
+import tasks.Task;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+public class HistoryBenchmark {
+    private static final int TASKS = 10_000;
+    private static final int VIEWS = 5_000_000;
+
+    public static void main(String[] args) {
+        Task[] tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = new Task(i + 1, "Task" + i, "Description", Status.NEW);
+        }
+        for (int i = 0; i < 3; i++) {
+            run("linked list", InMemoryHistoryManager::new, tasks);
+            run("arrays", () -> new ArrayHistoryManager(TASKS, id -> tasks[id - 1]), tasks);
+        }
+    }
+
+    private static void run(String name, Supplier<HistoryManager> factory, Task[] tasks) {
+        HistoryManager historyManager = factory.get();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long begin = System.nanoTime();
+        int seed = 17;
+        for (int i = 0; i < VIEWS; i++) {
+            seed = seed * 1_103_515_245 + 12_345; //один и тот же поток просмотров для обеих реализаций
+            historyManager.add(tasks[Math.floorMod(seed >> 8, TASKS)]);
+        }
+        long addNanos = System.nanoTime() - begin;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        begin = System.nanoTime();
+        int size = 0;
+        for (int i = 0; i < 100; i++) {
+            size += historyManager.getHistory().size();
+        }
+        long readNanos = System.nanoTime() - begin;
+        System.out.printf("%s: add %.1f нс/просмотр, %.1f байт/просмотр, getHistory %d мкс (%d)%n", name,
+                (double) addNanos / VIEWS, (double) allocated / VIEWS, readNanos / 100 / 1000, size / 100);
+    }
+}
@@ -5,10 +5,12 @@ import com.google.gson.reflect.TypeToken;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
+import exception.ErrorResponse;
 import tasks.Epic;
 import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskConflict;
 
 import java.io.IOException;
 import java.net.URI;
@@ -17,7 +19,10 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -419,4 +424,253 @@ public class HttpTaskManagerTest {
         assertEquals(3, responsePrioritized.size(), "Некорректное количество задач");
         assertEquals("Test 2", responsePrioritized.getLast().getName(), "Некорректное имя задачи");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetFreeWindow() throws IOException, InterruptedException {
+        manager.createTask(new Task("Test 1", "Testing task 1",
+                Status.NEW, Duration.ofMinutes(30), Instant.parse("2025-03-03T13:00:00Z")));
+        manager.createTask(new Task("Test 2", "Testing task 2",
+                Status.NEW, Duration.ofMinutes(10), Instant.parse("2025-03-03T13:40:00Z")));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized/free?duration=15&after=2025-03-03T13:10:00Z");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(Instant.parse("2025-03-03T13:50:00Z"), jsonMapper.fromJson(response.body(), Instant.class));
+
+        url = URI.create("http://localhost:8080/prioritized/free?duration=abc");
+        request = HttpRequest.newBuilder().uri(url).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void testGetPrioritizedPage() throws IOException, InterruptedException {
+        Instant start = Instant.parse("2025-03-03T13:00:00Z");
+        for (int i = 0; i < 5; i++) {
+            manager.createTask(new Task("Test " + i, "Testing task " + i,
+                    Status.NEW, Duration.ofMinutes(10), start.plus(Duration.ofHours(i))));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized?from=2025-03-03T13:30:00Z&limit=2");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Task> page = jsonMapper.fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(2, page.size(), "Некорректное количество задач");
+        assertEquals("Test 1", page.getFirst().getName(), "Некорректное имя задачи");
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+
+        url = URI.create("http://localhost:8080/prioritized?limit=2&cursor=" + cursor);
+        request = HttpRequest.newBuilder().uri(url).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        page = jsonMapper.fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(2, page.size(), "Некорректное количество задач");
+        assertEquals("Test 3", page.getFirst().getName(), "Некорректное имя задачи");
+        assertTrue(response.headers().firstValue("X-Next-Cursor").isEmpty());
+
+        url = URI.create("http://localhost:8080/prioritized?from=2025-03-03T15:00:00Z&to=2025-03-03T14:00:00Z");
+        request = HttpRequest.newBuilder().uri(url).GET().build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void testGetPrioritizedPageWithEqualStarts() throws IOException, InterruptedException {
+        Instant start = Instant.parse("2025-03-03T13:00:00Z");
+        manager.createTask(new Task("Test 0", "Testing task 0", Status.NEW, Duration.ZERO, start));
+        manager.createTask(new Task("Test 1", "Testing task 1", Status.NEW, Duration.ZERO, start));
+        manager.createTask(new Task("Test 2", "Testing task 2", Status.NEW, Duration.ofMinutes(10), start));
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<String> names = new ArrayList<>();
+        String query = "from=" + start + "&limit=1";
+        for (int i = 0; i < 5 && query != null; i++) {
+            URI url = URI.create("http://localhost:8080/prioritized?" + query);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder().uri(url).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            List<Task> page = jsonMapper.fromJson(response.body(), new TaskListTypeToken().getType());
+            page.forEach(task -> names.add(task.getName()));
+            query = response.headers().firstValue("X-Next-Cursor").map(cursor -> "limit=1&cursor=" + cursor)
+                    .orElse(null);
+        }
+
+        assertEquals(List.of("Test 0", "Test 1", "Test 2"), names, "Страницы повторяются или пропускают задачи");
+    }
+
+    @Test
+    public void testGetConflicts() throws IOException, InterruptedException {
+        Task task1 = new Task("Test 1", "Testing task 1",
+                Status.NEW, Duration.ofMinutes(30), Instant.parse("2025-03-03T13:00:00Z"));
+        Task task2 = new Task("Test 2", "Testing task 2",
+                Status.NEW, Duration.ofMinutes(30), Instant.parse("2025-03-03T14:00:00Z"));
+        manager.createTask(task1);
+        manager.createTask(task2);
+        task2.setStartTime(Instant.parse("2025-03-03T13:20:00Z"));
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI url = URI.create("http://localhost:8080/prioritized/conflicts");
+        HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<TaskConflict> conflicts = jsonMapper.fromJson(response.body(), new TypeToken<List<TaskConflict>>() {
+        }.getType());
+        assertEquals(1, conflicts.size(), "Некорректное количество пересечений");
+        assertEquals("Test 2", conflicts.getFirst().getSecond().getName(), "Некорректное имя задачи");
+    }
+
+    @Test
+    public void testConcurrentRequestsOnVirtualThreads() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new HttpTaskServer(Managers.getDefault(), 0, 64,
+                HttpTaskServer.ExecutorType.VIRTUAL_THREADS, 0), "Незащищенный менеджер не должен приниматься");
+        HttpTaskServer concurrentServer = new HttpTaskServer(Managers.getStampedLock(), 0, 64,
+                HttpTaskServer.ExecutorType.VIRTUAL_THREADS, 0);
+        concurrentServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI url = URI.create("http://localhost:" + concurrentServer.getPort() + "/tasks");
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String taskJson = jsonMapper.toJson(new Task("Test " + i, "Testing task", Status.NEW));
+                HttpRequest request = HttpRequest.newBuilder().uri(url)
+                        .POST(HttpRequest.BodyPublishers.ofString(taskJson)).build();
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(201, response.join().statusCode());
+            }
+            assertEquals(20, concurrentServer.getManager().getAllTasks().size(), "Некорректное количество задач");
+        } finally {
+            concurrentServer.stop(0);
+        }
+    }
+
+    @Test
+    public void testRejectWhenSaturated() throws IOException, InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager slowManager = new ConcurrentTaskManager() {
+            @Override
+            public ArrayList<Task> getAllTasks() {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getAllTasks();
+            }
+        };
+        HttpTaskServer limitedServer = new HttpTaskServer(slowManager, 0, 0,
+                HttpTaskServer.ExecutorType.VIRTUAL_THREADS, 0);
+        limitedServer.setAdmissionControl(1, 0, Duration.ofMillis(100));
+        limitedServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI url = URI.create("http://localhost:" + limitedServer.getPort() + "/tasks");
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            CompletableFuture<HttpResponse<String>> slow = client.sendAsync(request,
+                    HttpResponse.BodyHandlers.ofString());
+            entered.await();
+
+            HttpResponse<String> rejected = client.send(request, HttpResponse.BodyHandlers.ofString());
+            assertEquals(429, rejected.statusCode());
+            assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(429, jsonMapper.fromJson(rejected.body(), ErrorResponse.class).getCode());
+
+            release.countDown();
+            assertEquals(200, slow.join().statusCode());
+            assertEquals(1, limitedServer.getAdmissionFilter().getRejectedCount());
+        } finally {
+            release.countDown();
+            limitedServer.stop(0);
+        }
+    }
+
+    @Test
+    public void testRejectWhenPoolQueueIsFull() throws IOException, InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TaskManager slowManager = new ConcurrentTaskManager() {
+            @Override
+            public ArrayList<Task> getAllTasks() {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getAllTasks();
+            }
+        };
+        HttpTaskServer poolServer = new HttpTaskServer(slowManager, 0, 64,
+                HttpTaskServer.ExecutorType.BOUNDED_POOL, 1);
+        poolServer.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI url = URI.create("http://localhost:" + poolServer.getPort() + "/tasks");
+            HttpRequest request = HttpRequest.newBuilder().uri(url).GET().build();
+            CompletableFuture<HttpResponse<String>> slow = client.sendAsync(request,
+                    HttpResponse.BodyHandlers.ofString());
+            entered.await();
+            //единственный поток пула занят, в очереди 16 мест: остальные запросы должны получить отказ сразу
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            //пока единственный поток занят, завершиться могут только отказы: ждем все четыре, иначе поздние запросы
+            //попали бы в освободившуюся очередь
+            while (responses.stream().filter(CompletableFuture::isDone).count() < 4) {
+                Thread.sleep(10);
+            }
+            HttpResponse<String> rejected = responses.stream().filter(CompletableFuture::isDone).findFirst()
+                    .orElseThrow().join();
+            assertEquals(503, rejected.statusCode());
+            assertEquals("1", rejected.headers().firstValue("Retry-After").orElse(null));
+            assertEquals(503, jsonMapper.fromJson(rejected.body(), ErrorResponse.class).getCode());
+
+            release.countDown();
+            assertEquals(200, slow.join().statusCode());
+            long rejectedCount = responses.stream().filter(response -> response.join().statusCode() == 503).count();
+            assertEquals(4, rejectedCount, "Запросы сверх очереди должны получить отказ");
+            assertEquals(rejectedCount, poolServer.getOverloadFilter().getRejectedCount());
+        } finally {
+            release.countDown();
+            poolServer.stop(0);
+        }
+    }
+
+    @Test
+    public void testHistoryPerClient() throws IOException, InterruptedException {
+        HttpTaskServer sessionServer = new HttpTaskServer(
+                Managers.getDefaultWithSessions(10, 100, Duration.ofMinutes(5)), 0, 0,
+                HttpTaskServer.ExecutorType.DISPATCHER, 0);
+        sessionServer.start();
+        try {
+            Task task = sessionServer.getManager().createTask(new Task("Test 1", "Testing task 1", Status.NEW));
+            HttpClient client = HttpClient.newHttpClient();
+            String baseUrl = "http://localhost:" + sessionServer.getPort();
+            HttpRequest view = HttpRequest.newBuilder().uri(URI.create(baseUrl + "/tasks/" + task.getId()))
+                    .header(ClientSessionFilter.CLIENT_ID_HEADER, "alice").GET().build();
+            assertEquals(200, client.send(view, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+            HttpRequest aliceHistory = HttpRequest.newBuilder().uri(URI.create(baseUrl + "/history"))
+                    .header(ClientSessionFilter.CLIENT_ID_HEADER, "alice").GET().build();
+            HttpRequest bobHistory = HttpRequest.newBuilder().uri(URI.create(baseUrl + "/history"))
+                    .header(ClientSessionFilter.CLIENT_ID_HEADER, "bob").GET().build();
+            List<Task> alice = jsonMapper.fromJson(client.send(aliceHistory, HttpResponse.BodyHandlers.ofString())
+                    .body(), new TaskListTypeToken().getType());
+            List<Task> bob = jsonMapper.fromJson(client.send(bobHistory, HttpResponse.BodyHandlers.ofString())
+                    .body(), new TaskListTypeToken().getType());
+            assertEquals(1, alice.size(), "Некорректное количество задач");
+            assertTrue(bob.isEmpty(), "История другого клиента не пуста");
+        } finally {
+            sessionServer.stop(0);
+        }
+    }
+}
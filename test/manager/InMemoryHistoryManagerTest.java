@@ -0,0 +1,27 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryHistoryManagerTest {
+
+    @Test
+    void evictsLeastRecentlyViewed() {
+        HistoryManager historyManager = Managers.getDefaultHistory(3);
+        for (int id = 1; id <= 4; id++) {
+            historyManager.add(new Task(id, "Task" + id, "Description", Status.NEW));
+        }
+        historyManager.add(new Task(2, "Task2", "Description", Status.NEW));
+        historyManager.add(new Task(5, "Task5", "Description", Status.NEW));
+
+        List<Task> history = historyManager.getHistory();
+        assertEquals(List.of(4, 2, 5), history.stream().map(Task::getId).toList());
+        assertEquals(List.of(2, 5), historyManager.getHistory(2).stream().map(Task::getId).toList());
+        assertTrue(historyManager.getHistory(0).isEmpty());
+    }
+}
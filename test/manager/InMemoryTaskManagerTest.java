@@ -1,6 +1,16 @@
 package manager;
 
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class InMemoryTaskManagerTest extends TaskManagerTest {
 
@@ -13,4 +23,65 @@ class InMemoryTaskManagerTest extends TaskManagerTest {
     TaskManager getTaskManager() {
         return Managers.getDefault();
     }
-}
\ No newline at end of file
+
+    @Test
+    void checkEpicStateAfterSubtaskChanges() {
+        InMemoryTaskManager inMemoryManager = (InMemoryTaskManager) manager;
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        inMemoryManager.createEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание подзадачи 1", Status.NEW, epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание подзадачи 2", Status.DONE, Duration.ofMinutes(10),
+                Instant.parse("2025-03-03T12:00:00Z"), epic.getId());
+        inMemoryManager.createSubtask(subtask1);
+        inMemoryManager.createSubtask(subtask2);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertTrue(inMemoryManager.isEpicStateConsistent());
+
+        subtask1.setStatus(Status.DONE);
+        inMemoryManager.updateSubtask(subtask1);
+        assertEquals(Status.DONE, epic.getStatus());
+        assertTrue(inMemoryManager.isEpicStateConsistent());
+
+        inMemoryManager.updateSubtask(new Subtask(subtask2.getId(), "Подзадача 2", "Описание подзадачи 2",
+                Status.IN_PROGRESS, Duration.ofMinutes(20), Instant.parse("2025-03-03T12:00:00Z"), epic.getId()));
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+        assertTrue(inMemoryManager.isEpicStateConsistent());
+
+        inMemoryManager.deleteSubtaskById(subtask2.getId());
+        assertEquals(Status.DONE, epic.getStatus());
+        assertTrue(inMemoryManager.isEpicStateConsistent());
+
+        inMemoryManager.deleteAllSubtasks();
+        assertEquals(Status.NEW, epic.getStatus());
+        assertTrue(inMemoryManager.isEpicStateConsistent());
+    }
+
+    @Test
+    void checkPrioritizedIndexAfterUpdates() {
+        InMemoryTaskManager inMemoryManager = (InMemoryTaskManager) manager;
+        Instant startTime = Instant.parse("2025-03-03T12:00:00Z");
+        Task task1 = new Task("Task1", "Description", Status.NEW, Duration.ofMinutes(15), startTime);
+        Task task2 = new Task("Task2", "Description", Status.NEW, Duration.ofMinutes(0), startTime);
+        inMemoryManager.createTask(task1);
+        inMemoryManager.createTask(task2);
+        assertEquals(2, inMemoryManager.getPrioritizedTasks().size());
+        assertTrue(inMemoryManager.isPrioritizedIndexConsistent());
+
+        for (int i = 1; i <= 3; i++) {
+            inMemoryManager.updateTask(new Task(task1.getId(), "Task1", "Description", Status.NEW,
+                    Duration.ofMinutes(15), startTime.plus(Duration.ofHours(i))));
+        }
+        assertEquals(2, inMemoryManager.getPrioritizedTasks().size());
+        assertEquals(startTime.plus(Duration.ofHours(3)), inMemoryManager.getPrioritizedTasks().getLast().getStartTime());
+        assertTrue(inMemoryManager.isPrioritizedIndexConsistent());
+
+        inMemoryManager.updateTask(new Task(task1.getId(), "Task1", "Description", Status.NEW));
+        assertEquals(1, inMemoryManager.getPrioritizedTasks().size());
+        assertTrue(inMemoryManager.isPrioritizedIndexConsistent());
+
+        inMemoryManager.deleteTaskById(task1.getId());
+        inMemoryManager.deleteTaskById(task2.getId());
+        assertTrue(inMemoryManager.getPrioritizedTasks().isEmpty());
+        assertTrue(inMemoryManager.isPrioritizedIndexConsistent());
+    }
+}
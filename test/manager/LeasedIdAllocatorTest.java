@@ -0,0 +1,85 @@
+package manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasedIdAllocatorTest {
+
+    @Test
+    void concurrentIdsAreUnique() throws Exception {
+        IdAllocator allocator = new LeasedIdAllocator(16);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    assertTrue(ids.add(allocator.nextId()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(8000, ids.size());
+    }
+
+    @Test
+    void restartContinuesAfterHighWaterMark() throws IOException {
+        File file = File.createTempFile("ids", ".hwm");
+        Files.writeString(file.toPath(), "");
+        LeasedIdAllocator allocator = new LeasedIdAllocator(10, file);
+        assertEquals(1, allocator.nextId());
+        assertEquals(2, allocator.nextId());
+        assertEquals("10", Files.readString(file.toPath()));
+
+        LeasedIdAllocator restarted = new LeasedIdAllocator(10, file);
+        assertEquals(11, restarted.nextId());
+        restarted.advanceTo(50);
+        assertEquals(51, restarted.nextId());
+        assertEquals(60, restarted.getHighWaterMark());
+    }
+
+    @Test
+    void shortLivedThreadsReuseLeases() throws Exception {
+        LeasedIdAllocator allocator = new LeasedIdAllocator(100);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(() -> assertTrue(ids.add(allocator.nextId()))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertEquals(1000, ids.size());
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+        assertTrue(allocator.getHighWaterMark() <= 1000 + stripes * 100, "Диапазон берется на каждый поток");
+    }
+
+    @Test
+    void rejectsIdOverflow() {
+        LeasedIdAllocator allocator = new LeasedIdAllocator(10);
+        allocator.advanceTo(Integer.MAX_VALUE - 2);
+
+        assertEquals(Integer.MAX_VALUE - 1, allocator.nextId());
+        assertEquals(Integer.MAX_VALUE, allocator.nextId());
+        assertThrows(IllegalStateException.class, allocator::nextId);
+    }
+}
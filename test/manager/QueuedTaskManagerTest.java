@@ -0,0 +1,104 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueuedTaskManagerTest extends TaskManagerTest {
+
+    @BeforeEach
+    public void initManager() {
+        manager = getTaskManager();
+    }
+
+    @Override
+    TaskManager getTaskManager() {
+        return Managers.getQueued();
+    }
+
+    @Test
+    void submittedCommandsAreAppliedInBatches() throws IOException {
+        File file = File.createTempFile("dataTemp", ".csv");
+        FileBackedTaskManager fileManager = new FileBackedTaskManager(file);
+        QueuedTaskManager queued = Managers.getQueued(fileManager, 1024, 64);
+        Epic epic = queued.createEpic(new Epic("Эпик", "Описание"));
+        List<CompletableFuture<Subtask>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Subtask subtask = new Subtask("Подзадача" + i, "Описание", Status.DONE, epic.getId());
+            futures.add(queued.submit(manager -> manager.createSubtask(subtask)));
+        }
+        for (CompletableFuture<Subtask> future : futures) {
+            assertNotNull(future.join().getId());
+        }
+        queued.close();
+        fileManager.close();
+
+        assertEquals(201, queued.getAppliedCommands());
+        assertTrue(queued.getAppliedBatches() <= queued.getAppliedCommands());
+        assertTrue(queued.getLastBatchSize() <= queued.getMaxBatchSize());
+        assertEquals(0, queued.getQueueDepth());
+        assertEquals(Status.DONE, queued.getEpicById(epic.getId()).getStatus());
+        assertEquals(202, Files.readAllLines(file.toPath()).size());
+        assertTrue(queued.submit(manager -> manager.createTask(new Task("Task", "Description", Status.NEW)))
+                .isCompletedExceptionally());
+    }
+
+    @Test
+    void closeRacingWithSubmittersCompletesEveryFuture() throws InterruptedException {
+        QueuedTaskManager queued = Managers.getQueued(Managers.getDefault(), 4, 2);
+        List<CompletableFuture<Task>> futures = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread submitter = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 500; i++) {
+                    futures.add(queued.submit(manager -> manager.createTask(new Task("Task", "Description",
+                            Status.NEW))));
+                }
+            });
+            submitters.add(submitter);
+            submitter.start();
+        }
+        started.await();
+        queued.close();
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+
+        for (CompletableFuture<Task> future : futures) {
+            assertTrue(future.isDone(), "Команда осталась без результата после close");
+        }
+    }
+
+    @Test
+    void errorInCommandDoesNotStopWriter() throws Exception {
+        QueuedTaskManager queued = Managers.getQueued(Managers.getDefault(), 16, 4);
+        CompletableFuture<Object> failed = queued.submit(manager -> {
+            throw new AssertionError("сбой");
+        });
+        CompletableFuture<Task> next = queued.submit(manager -> manager.createTask(new Task("Task", "Description",
+                Status.NEW)));
+
+        assertTrue(assertThrows(ExecutionException.class,
+                () -> failed.get(1, TimeUnit.SECONDS)).getCause() instanceof AssertionError);
+        assertNotNull(next.get(1, TimeUnit.SECONDS).getId());
+        queued.close();
+    }
+}
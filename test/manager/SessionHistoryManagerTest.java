@@ -0,0 +1,88 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionHistoryManagerTest {
+    private Instant now = Instant.parse("2025-03-03T12:00:00Z");
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+
+    @AfterEach
+    public void clearClient() {
+        SessionHistoryManager.clearCurrentClient();
+    }
+
+    @Test
+    void historyIsSeparatedByClient() {
+        SessionHistoryManager historyManager = new SessionHistoryManager(10, 100, Duration.ofMinutes(5), clock);
+        SessionHistoryManager.setCurrentClient("alice");
+        historyManager.add(new Task(1, "Task1", "Description", Status.NEW));
+        historyManager.add(new Task(2, "Task2", "Description", Status.NEW));
+        SessionHistoryManager.setCurrentClient("bob");
+        historyManager.add(new Task(2, "Task2", "Description", Status.NEW));
+
+        historyManager.remove(2);
+
+        assertTrue(historyManager.getHistory().isEmpty());
+        SessionHistoryManager.setCurrentClient("alice");
+        assertEquals(List.of(1), historyManager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void evictsIdleAndLeastRecentSessions() {
+        SessionHistoryManager historyManager = new SessionHistoryManager(10, 20, Duration.ofMinutes(5), clock);
+        for (String client : List.of("a", "b")) {
+            SessionHistoryManager.setCurrentClient(client);
+            historyManager.add(new Task(1, "Task1", "Description", Status.NEW));
+            now = now.plusSeconds(1);
+        }
+        SessionHistoryManager.setCurrentClient("c");
+        historyManager.add(new Task(1, "Task1", "Description", Status.NEW));
+        assertEquals(2, historyManager.getSessionCount()); //лимит на 2 сессии, вытеснена самая старая "a"
+
+        SessionHistoryManager.setCurrentClient("a");
+        assertTrue(historyManager.getHistory().isEmpty());
+
+        now = now.plus(Duration.ofMinutes(10));
+        historyManager.evictIdle();
+        assertEquals(0, historyManager.getSessionCount());
+    }
+
+    @Test
+    void evictsIdleSessionsBelowCap() {
+        SessionHistoryManager historyManager = new SessionHistoryManager(10, 1000, Duration.ofMinutes(5), clock);
+        SessionHistoryManager.setCurrentClient("a");
+        historyManager.add(new Task(1, "Task1", "Description", Status.NEW));
+
+        now = now.plus(Duration.ofMinutes(10));
+        SessionHistoryManager.setCurrentClient("b");
+        historyManager.add(new Task(1, "Task1", "Description", Status.NEW));
+
+        assertEquals(1, historyManager.getSessionCount(), "Просроченная сессия не удалена");
+    }
+}
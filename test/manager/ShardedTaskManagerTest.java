@@ -0,0 +1,52 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTaskManagerTest extends TaskManagerTest {
+
+    @BeforeEach
+    public void initManager() {
+        manager = getTaskManager();
+    }
+
+    @Override
+    TaskManager getTaskManager() {
+        return Managers.getSharded(4);
+    }
+
+    @Test
+    void scheduleIsGlobalAcrossShards() {
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        for (int i = 0; i < 8; i++) {
+            manager.createTask(new Task("Task" + i, "Description", Status.NEW, Duration.ofMinutes(10),
+                    start.plus(Duration.ofMinutes(20L * (7 - i)))));
+        }
+        Subtask overlapping = manager.createSubtask(new Subtask("Подзадача", "Описание", Status.NEW,
+                Duration.ofMinutes(10), start.plus(Duration.ofMinutes(5)), epic.getId()));
+        Subtask free = manager.createSubtask(new Subtask("Подзадача", "Описание", Status.NEW,
+                Duration.ofMinutes(10), start.plus(Duration.ofMinutes(10)), epic.getId()));
+
+        assertNull(overlapping.getId());
+        assertNotNull(free.getId());
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(9, prioritized.size());
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertTrue(prioritized.get(i - 1).getStartTime().isBefore(prioritized.get(i).getStartTime()));
+        }
+        assertEquals(3, manager.getPrioritizedTasks(start, null, 3).size());
+        assertEquals(start.plus(Duration.ofMinutes(150)), manager.findFreeWindow(Duration.ofMinutes(15), start));
+        assertEquals(free, manager.getSubtaskById(free.getId()));
+    }
+}
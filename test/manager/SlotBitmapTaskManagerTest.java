@@ -0,0 +1,72 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Status;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotBitmapTaskManagerTest extends TaskManagerTest {
+
+    @BeforeEach
+    public void initManager() {
+        manager = getTaskManager();
+    }
+
+    @Override
+    TaskManager getTaskManager() {
+        return Managers.getDefault(Managers.getSlotBitmapChecker(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void checkCrossOnPageBoundary() {
+        SlotBitmap bitmap = new SlotBitmap();
+        Instant pageEnd = Instant.ofEpochSecond(4096 * 60);
+        Task task = new Task(1, "Task1", "Description", Status.NEW, Duration.ofMinutes(130),
+                pageEnd.minus(Duration.ofMinutes(65)));
+        bitmap.add(task);
+
+        assertTrue(bitmap.hasOverlap(pageEnd.plus(Duration.ofMinutes(64)), pageEnd.plus(Duration.ofMinutes(70)), 2));
+        assertFalse(bitmap.hasOverlap(pageEnd.plus(Duration.ofMinutes(65)), pageEnd.plus(Duration.ofMinutes(70)), 2));
+        assertFalse(bitmap.hasOverlap(pageEnd.minus(Duration.ofMinutes(10)), pageEnd, 1));
+
+        bitmap.remove(1);
+        assertFalse(bitmap.hasOverlap(pageEnd.minus(Duration.ofMinutes(65)), pageEnd.plus(Duration.ofMinutes(65)), 2));
+    }
+
+    @Test
+    void sharedBoundarySlotSurvivesNeighbourRemoval() {
+        SlotBitmap bitmap = new SlotBitmap(Duration.ofHours(1));
+        Instant start = Instant.parse("2025-03-03T10:00:00Z");
+        bitmap.add(new Task(1, "Task1", "Description", Status.NEW, Duration.ofMinutes(30), start));
+        bitmap.add(new Task(2, "Task2", "Description", Status.NEW, Duration.ofMinutes(30),
+                start.plus(Duration.ofMinutes(30))));
+
+        assertTrue(bitmap.hasOverlap(start, start.plus(Duration.ofMinutes(45)), 1),
+                "Общий слот соседа не должен исключаться вместе со слотами задачи");
+        bitmap.remove(1);
+        assertTrue(bitmap.hasOverlap(start.plus(Duration.ofMinutes(40)), start.plus(Duration.ofMinutes(50)), 3));
+        bitmap.remove(2);
+        assertFalse(bitmap.hasOverlap(start, start.plus(Duration.ofHours(1)), 3));
+    }
+
+    @Test
+    void adjacentTasksMayShareBoundarySlot() {
+        for (Duration granularity : new Duration[]{Duration.ofMinutes(1), Duration.ofMinutes(15)}) {
+            SlotBitmap bitmap = new SlotBitmap(granularity);
+            Instant start = Instant.parse("2025-03-03T12:00:30Z");
+            bitmap.add(new Task(1, "Task1", "Description", Status.NEW, Duration.ofMinutes(10), start));
+
+            assertFalse(bitmap.hasOverlap(start.plus(Duration.ofMinutes(10)), start.plus(Duration.ofMinutes(20)), 2),
+                    "Задача, начинающаяся в момент окончания соседней, не пересекается с ней");
+            assertTrue(bitmap.hasOverlap(start.plus(Duration.ofSeconds(599)), start.plus(Duration.ofMinutes(20)), 2));
+            assertFalse(bitmap.hasOverlap(start.minus(Duration.ofMinutes(5)), start, 2));
+            assertFalse(bitmap.hasOverlap(start.plus(Duration.ofMinutes(10)), start.plus(Duration.ofMinutes(10)), 2));
+            assertTrue(bitmap.hasOverlap(start.plus(Duration.ofMinutes(5)), start.plus(Duration.ofMinutes(5)), 2));
+        }
+    }
+}
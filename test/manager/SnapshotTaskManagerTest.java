@@ -0,0 +1,136 @@
+package manager;
+
+import exception.TaskNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTaskManagerTest extends TaskManagerTest {
+
+    @BeforeEach
+    public void initManager() {
+        manager = getTaskManager();
+    }
+
+    @Override
+    TaskManager getTaskManager() {
+        return Managers.getSnapshot();
+    }
+
+    @Test
+    void readersKeepTheirSnapshot() {
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        Task task = manager.createTask(new Task("Task", "Description", Status.NEW, Duration.ofMinutes(10), start));
+        List<Task> before = manager.getAllTasks();
+        List<Task> prioritizedBefore = manager.getPrioritizedTasks();
+
+        manager.updateTask(new Task(task.getId(), "Task", "Description", Status.DONE,
+                Duration.ofMinutes(10), start.plus(Duration.ofHours(1))));
+        manager.createTask(new Task("Task2", "Description", Status.NEW));
+
+        assertEquals(1, before.size());
+        assertEquals(Status.NEW, before.getFirst().getStatus());
+        assertEquals(start, prioritizedBefore.getFirst().getStartTime());
+        assertEquals(2, manager.getAllTasks().size());
+        assertEquals(Status.DONE, manager.getTaskById(task.getId()).getStatus());
+        assertEquals(start.plus(Duration.ofHours(1)), manager.getPrioritizedTasks().getFirst().getStartTime());
+    }
+
+    @Test
+    void epicAndSubtasksAreReadFromOneSnapshot() throws Exception {
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> {
+            for (int i = 0; i < 500; i++) {
+                Subtask subtask = manager.createSubtask(new Subtask("Подзадача", "Описание", Status.DONE,
+                        epic.getId()));
+                if (i % 2 == 0) {
+                    manager.deleteSubtaskById(subtask.getId());
+                }
+            }
+        }));
+        for (int thread = 0; thread < 3; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    for (Subtask subtask : manager.getEpicSubtasks(epic.getId())) {
+                        assertNotNull(subtask);
+                        assertEquals(Status.DONE, subtask.getStatus());
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(250, manager.getEpicSubtasks(epic.getId()).size());
+        assertEquals(250, manager.getAllSubtasks().size());
+        assertEquals(Status.DONE, manager.getAllEpics().getFirst().getStatus());
+    }
+
+    @Test
+    void epicReadBeforeSubtaskWriteKeepsItsMembers() {
+        Epic epic = manager.createEpic(new Epic("Эпик", "Описание"));
+        Subtask first = manager.createSubtask(new Subtask("Подзадача1", "Описание", Status.NEW, epic.getId()));
+        Epic before = manager.getEpicById(epic.getId());
+        Subtask second = manager.createSubtask(new Subtask("Подзадача2", "Описание", Status.DONE, epic.getId()));
+        manager.deleteSubtaskById(first.getId());
+
+        assertEquals(List.of(first.getId()), List.copyOf(before.getSubtasksId()));
+        assertEquals(List.of(second.getId()), List.copyOf(manager.getEpicById(epic.getId()).getSubtasksId()));
+        assertEquals(List.of(second), manager.getEpicSubtasks(epic.getId()));
+        assertEquals(Status.DONE, manager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    void viewsRacingDeletesDoNotReturnToHistory() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            ids.add(manager.createTask(new Task("Task" + i, "Description", Status.NEW)).getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger target = new AtomicInteger(ids.getFirst()); //читатели смотрят задачу, которую сейчас удаляют
+        AtomicBoolean deleting = new AtomicBoolean(true);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 3; thread++) {
+            futures.add(executor.submit(() -> {
+                while (deleting.get()) {
+                    try {
+                        manager.getTaskById(target.get());
+                    } catch (TaskNotFoundException ignored) {
+                        //удаление успело раньше просмотра
+                    }
+                }
+            }));
+        }
+        for (Integer id : ids) {
+            target.set(id);
+            manager.getTaskById(id); //пока писатель смотрит задачу, читатели успевают взять снимок с ней
+            manager.deleteTaskById(id);
+        }
+        deleting.set(false);
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertTrue(manager.getHistory().isEmpty(), "В истории остались удаленные задачи");
+    }
+}
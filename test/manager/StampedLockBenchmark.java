@@ -0,0 +1,254 @@
+package manager;
+
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+import tasks.TaskConflict;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+public class StampedLockBenchmark {
+    private static final int TASKS = 1_000;
+    private static final int EPICS = 100;
+    private static final long RUN_MILLIS = 1_000;
+    private static final Instant START = Instant.parse("2025-03-03T00:00:00Z");
+
+    public static void main(String[] args) throws InterruptedException {
+        //первый аргумент - наибольшее число потоков, по умолчанию число ядер
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < 2; i++) {
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                run("stamped lock", Managers::getStampedLock, threads);
+                run("read-write lock", () -> new ReadWriteLockTaskManager(Managers.getDefault()), threads);
+                run("striped locks", Managers::getConcurrent, threads);
+            }
+        }
+    }
+
+    private static void run(String name, Supplier<TaskManager> factory, int threads) throws InterruptedException {
+        TaskManager manager = factory.get();
+        List<Task> tasks = new ArrayList<>();
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(manager.createTask(new Task("Task" + i, "Description", Status.NEW, Duration.ofMinutes(20),
+                    START.plus(Duration.ofMinutes(30L * i)))));
+        }
+        for (int i = 0; i < EPICS; i++) {
+            Epic epic = manager.createEpic(new Epic("Эпик" + i, "Описание"));
+            epicIds.add(epic.getId());
+            for (int j = 0; j < 5; j++) {
+                manager.createSubtask(new Subtask("Подзадача", "Описание", Status.NEW, epic.getId()));
+            }
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    int dice = random.nextInt(100);
+                    //95% чтений: подзадачи эпика, окно расписания, список задач; 5% обновлений
+                    if (dice < 5) {
+                        Task task = tasks.get(random.nextInt(TASKS));
+                        manager.updateTask(new Task(task.getId(), task.getName(), task.getDescription(),
+                                Status.IN_PROGRESS, task.getDuration(), task.getStartTime()));
+                    } else if (dice < 50) {
+                        manager.getEpicSubtasks(epicIds.get(random.nextInt(EPICS)));
+                    } else if (dice < 95) {
+                        manager.getPrioritizedTasks(START.plus(Duration.ofMinutes(30L * random.nextInt(TASKS))),
+                                null, 10);
+                    } else {
+                        manager.getAllTasks();
+                    }
+                    operations.increment();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        Thread.sleep(RUN_MILLIS);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("%s, потоков %d: %d операций/с%n", name, threads,
+                operations.sum() * 1000 / RUN_MILLIS);
+    }
+
+    //базовая линия: каждое чтение под общим read lock делегата, без кэша и оптимистичных чтений
+    private static class ReadWriteLockTaskManager implements TaskManager {
+        private final TaskManager delegate;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        ReadWriteLockTaskManager(TaskManager delegate) {
+            this.delegate = delegate;
+        }
+
+        private <T> T read(Supplier<T> operation) {
+            lock.readLock().lock();
+            try {
+                return operation.get();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private <T> T write(Supplier<T> operation) {
+            lock.writeLock().lock();
+            try {
+                return operation.get();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public Task createTask(Task task) {
+            return write(() -> delegate.createTask(task));
+        }
+
+        @Override
+        public Epic createEpic(Epic epic) {
+            return write(() -> delegate.createEpic(epic));
+        }
+
+        @Override
+        public Subtask createSubtask(Subtask subtask) {
+            return write(() -> delegate.createSubtask(subtask));
+        }
+
+        @Override
+        public boolean updateTask(Task task) {
+            return write(() -> delegate.updateTask(task));
+        }
+
+        @Override
+        public boolean updateEpic(Epic epic) {
+            return write(() -> delegate.updateEpic(epic));
+        }
+
+        @Override
+        public boolean updateSubtask(Subtask subtask) {
+            return write(() -> delegate.updateSubtask(subtask));
+        }
+
+        @Override
+        public List<Subtask> getEpicSubtasks(Integer epicId) {
+            return read(() -> delegate.getEpicSubtasks(epicId));
+        }
+
+        @Override
+        public Task deleteTaskById(Integer id) {
+            return write(() -> delegate.deleteTaskById(id));
+        }
+
+        @Override
+        public Epic deleteEpicById(Integer id) {
+            return write(() -> delegate.deleteEpicById(id));
+        }
+
+        @Override
+        public Subtask deleteSubtaskById(Integer id) {
+            return write(() -> delegate.deleteSubtaskById(id));
+        }
+
+        @Override
+        public Task getTaskById(Integer id) {
+            return write(() -> delegate.getTaskById(id)); //просмотр меняет историю
+        }
+
+        @Override
+        public Epic getEpicById(Integer id) {
+            return write(() -> delegate.getEpicById(id));
+        }
+
+        @Override
+        public Subtask getSubtaskById(Integer id) {
+            return write(() -> delegate.getSubtaskById(id));
+        }
+
+        @Override
+        public List<Task> getAllTasks() {
+            return read(delegate::getAllTasks);
+        }
+
+        @Override
+        public List<Epic> getAllEpics() {
+            return read(delegate::getAllEpics);
+        }
+
+        @Override
+        public List<Subtask> getAllSubtasks() {
+            return read(delegate::getAllSubtasks);
+        }
+
+        @Override
+        public void deleteAllTasks() {
+            write(() -> {
+                delegate.deleteAllTasks();
+                return null;
+            });
+        }
+
+        @Override
+        public void deleteAllSubtasks() {
+            write(() -> {
+                delegate.deleteAllSubtasks();
+                return null;
+            });
+        }
+
+        @Override
+        public void deleteAllEpics() {
+            write(() -> {
+                delegate.deleteAllEpics();
+                return null;
+            });
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            return read(delegate::getHistory);
+        }
+
+        @Override
+        public List<Task> getPrioritizedTasks() {
+            return read(delegate::getPrioritizedTasks);
+        }
+
+        @Override
+        public List<Task> getPrioritizedTasks(Instant from, Instant to, int limit) {
+            return read(() -> delegate.getPrioritizedTasks(from, to, limit));
+        }
+
+        @Override
+        public List<Task> getPrioritizedTasksAfter(Instant startTime, int id, Instant to, int limit) {
+            return read(() -> delegate.getPrioritizedTasksAfter(startTime, id, to, limit));
+        }
+
+        @Override
+        public Instant findFreeWindow(Duration duration, Instant after) {
+            return read(() -> delegate.findFreeWindow(duration, after));
+        }
+
+        @Override
+        public List<TaskConflict> findConflicts() {
+            return read(delegate::findConflicts);
+        }
+
+        @Override
+        public String toString() {
+            return read(delegate::toString);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StampedLockTaskManagerTest extends TaskManagerTest {
+
+    @BeforeEach
+    public void initManager() {
+        manager = getTaskManager();
+    }
+
+    @Override
+    TaskManager getTaskManager() {
+        return Managers.getStampedLock();
+    }
+
+    @Test
+    void readsDuringWritesSeeConsistentState() throws Exception {
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        List<Task> created = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            created.add(manager.createTask(new Task("Task", "Description", Status.NEW,
+                    Duration.ofMinutes(10), start.plus(Duration.ofMinutes(20L * i)))));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (Task task : created) {
+                    //сдвиг на 5 минут не создаёт пересечений, но перестраивает индекс расписания
+                    manager.updateTask(new Task(task.getId(), "Task", "Description", Status.IN_PROGRESS,
+                            Duration.ofMinutes(10), task.getStartTime().plus(Duration.ofMinutes(round % 2 * 5L))));
+                }
+            }
+        }));
+        for (int thread = 0; thread < 7; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    assertEquals(100, manager.getAllTasks().size());
+                    assertEquals(100, manager.getPrioritizedTasks().size());
+                    assertEquals(10, manager.getPrioritizedTasks(start, null, 10).size());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(100, manager.getPrioritizedTasks().size());
+        assertTrue(manager.findConflicts().isEmpty());
+    }
+
+    @Test
+    void parameterizedReadsAreCachedUntilNextWrite() {
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        Epic epic = manager.createEpic(new Epic("Epic", "Description"));
+        manager.createSubtask(new Subtask("Subtask", "Description", Status.NEW, Duration.ofMinutes(10), start,
+                epic.getId()));
+
+        List<Task> range = manager.getPrioritizedTasks(start, null, 10);
+        List<Subtask> subtasks = manager.getEpicSubtasks(epic.getId());
+        assertSame(range, manager.getPrioritizedTasks(start, null, 10), "Повторное чтение должно брать копию из кэша");
+        assertSame(subtasks, manager.getEpicSubtasks(epic.getId()));
+        assertSame(manager.getAllTasks(), manager.getAllTasks());
+        assertThrows(UnsupportedOperationException.class, () -> range.add(null));
+
+        manager.createSubtask(new Subtask("Subtask2", "Description", Status.NEW, Duration.ofMinutes(10),
+                start.plus(Duration.ofHours(1)), epic.getId()));
+        assertEquals(2, manager.getPrioritizedTasks(start, null, 10).size());
+        assertEquals(2, manager.getEpicSubtasks(epic.getId()).size());
+        assertEquals(start.plus(Duration.ofMinutes(10)), manager.findFreeWindow(Duration.ofMinutes(10), start));
+    }
+}
@@ -5,11 +5,13 @@ import tasks.Epic;
 import tasks.Status;
 import tasks.Subtask;
 import tasks.Task;
+import tasks.TaskConflict;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -234,6 +236,20 @@ abstract class TaskManagerTest<M extends TaskManager> {
         assertEquals(manager.getHistory().get(0).getId(), subtask2.getId());
     }
 
+    @Test
+    void getHistoryWithLimit() {
+        for (int i = 0; i < 5; i++) {
+            Task task = manager.createTask(new Task("Task" + i, "Description", Status.NEW));
+            manager.getTaskById(task.getId());
+        }
+
+        List<Task> newest = manager.getHistory(2);
+        assertEquals(2, newest.size());
+        assertEquals("Task3", newest.getFirst().getName());
+        assertEquals("Task4", newest.getLast().getName());
+        assertEquals(5, manager.getHistory(10).size());
+    }
+
     @Test
     void checkHistoryAfterUpdatingTask() {
         Epic epic = new Epic("Эпик 1", "Описание эпика 1");
@@ -287,4 +303,169 @@ abstract class TaskManagerTest<M extends TaskManager> {
                 manager.getPrioritizedTasks().getFirst());
         assertEquals(1, manager.getPrioritizedTasks().size());
     }
+
+    @Test
+    void checkTimeCrossWithZeroDurationTasks() {
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        manager.createTask(new Task("Task", "Description", Status.NEW, Duration.ofMinutes(30), start));
+
+        Task inside = new Task("Inside", "Description", Status.NEW, Duration.ZERO, start.plusSeconds(600));
+        manager.createTask(inside);
+        assertNull(inside.getId(), "Момент внутри задачи должен пересекаться с ней");
+        Task atStart = new Task("AtStart", "Description", Status.NEW, Duration.ZERO, start);
+        Task atStartAgain = new Task("AtStartAgain", "Description", Status.NEW, Duration.ZERO, start);
+        Task atEnd = new Task("AtEnd", "Description", Status.NEW, Duration.ZERO, start.plusSeconds(1800));
+        manager.createTask(atStart);
+        manager.createTask(atStartAgain);
+        manager.createTask(atEnd);
+        assertNotNull(atStart.getId());
+        assertNotNull(atStartAgain.getId());
+        assertNotNull(atEnd.getId());
+
+        Instant pointTime = start.plus(Duration.ofHours(1));
+        manager.createTask(new Task("Point", "Description", Status.NEW, Duration.ZERO, pointTime));
+        Task spanning = new Task("Spanning", "Description", Status.NEW, Duration.ofMinutes(30),
+                pointTime.minus(Duration.ofMinutes(10)));
+        manager.createTask(spanning);
+        assertNull(spanning.getId(), "Задача не должна накрывать задачу без длительности");
+        Task fromPoint = new Task("FromPoint", "Description", Status.NEW, Duration.ofMinutes(30), pointTime);
+        manager.createTask(fromPoint);
+        assertNotNull(fromPoint.getId());
+        assertTrue(manager.findConflicts().isEmpty());
+    }
+
+    @Test
+    void checkTimeCrossAfterUpdateAndDelete() {
+        Duration duration = Duration.of(30, ChronoUnit.MINUTES);
+        Instant startTime1 = Instant.parse("2025-03-03T12:00:00Z");
+        Instant startTime2 = Instant.parse("2025-03-03T12:15:00Z");
+
+        Task task1 = new Task("Task1", "Description", Status.NEW, duration, startTime1);
+        manager.createTask(task1);
+        Task task2 = new Task("Task2", "Description", Status.NEW, duration, startTime2);
+        manager.createTask(task2);
+        assertNull(task2.getId());
+
+        Task movedTask = new Task(task1.getId(), "Task1", "Description", Status.NEW, duration,
+                Instant.parse("2025-03-03T13:00:00Z"));
+        assertTrue(manager.updateTask(movedTask));
+        manager.createTask(task2);
+        assertNotNull(task2.getId());
+
+        Task task3 = new Task("Task3", "Description", Status.NEW, duration, Instant.parse("2025-03-03T13:10:00Z"));
+        manager.createTask(task3);
+        assertNull(task3.getId());
+
+        manager.deleteTaskById(task1.getId());
+        manager.createTask(task3);
+        assertNotNull(task3.getId());
+    }
+
+    @Test
+    void findFreeWindow() {
+        Duration duration = Duration.of(30, ChronoUnit.MINUTES);
+        manager.createTask(new Task("Task1", "Description", Status.NEW, duration,
+                Instant.parse("2025-03-03T12:00:00Z")));
+        manager.createTask(new Task("Task2", "Description", Status.NEW, duration,
+                Instant.parse("2025-03-03T12:45:00Z")));
+        manager.createTask(new Task("Task3", "Description", Status.NEW, duration,
+                Instant.parse("2025-03-03T13:15:00Z")));
+
+        assertEquals(Instant.parse("2025-03-03T12:30:00Z"),
+                manager.findFreeWindow(Duration.ofMinutes(15), Instant.parse("2025-03-03T12:10:00Z")));
+        assertEquals(Instant.parse("2025-03-03T13:45:00Z"),
+                manager.findFreeWindow(Duration.ofMinutes(20), Instant.parse("2025-03-03T12:10:00Z")));
+        assertEquals(Instant.parse("2025-03-03T11:00:00Z"),
+                manager.findFreeWindow(Duration.ofMinutes(60), Instant.parse("2025-03-03T11:00:00Z")));
+    }
+
+    @Test
+    void checkEpicTimeAfterSubtaskChanges() {
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        manager.createEpic(epic);
+        Duration duration = Duration.of(15, ChronoUnit.MINUTES);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание подзадачи 1", Status.NEW, duration,
+                Instant.parse("2025-03-03T12:00:00Z"), epic.getId());
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание подзадачи 2", Status.NEW, duration,
+                Instant.parse("2025-03-03T14:00:00Z"), epic.getId());
+        manager.createSubtask(subtask1);
+        manager.createSubtask(subtask2);
+
+        assertEquals(Instant.parse("2025-03-03T12:00:00Z"), epic.getStartTime());
+        assertEquals(Instant.parse("2025-03-03T14:15:00Z"), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(30), epic.getDuration());
+
+        manager.updateSubtask(new Subtask(subtask1.getId(), "Подзадача 1", "Описание подзадачи 1", Status.NEW,
+                Duration.ofMinutes(60), Instant.parse("2025-03-03T15:00:00Z"), epic.getId()));
+        assertEquals(Instant.parse("2025-03-03T14:00:00Z"), epic.getStartTime());
+        assertEquals(Instant.parse("2025-03-03T16:00:00Z"), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(75), epic.getDuration());
+
+        manager.deleteSubtaskById(subtask2.getId());
+        assertEquals(Instant.parse("2025-03-03T15:00:00Z"), epic.getStartTime());
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+
+        manager.deleteAllSubtasks();
+        assertNull(epic.getStartTime());
+        assertNull(epic.getEndTime());
+        assertNull(epic.getDuration());
+    }
+
+    @Test
+    void getPrioritizedTasksInRange() {
+        Duration duration = Duration.of(15, ChronoUnit.MINUTES);
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        for (int i = 0; i < 5; i++) {
+            manager.createTask(new Task("Task" + i, "Description", Status.NEW, duration,
+                    start.plus(Duration.ofHours(i))));
+        }
+
+        List<Task> range = manager.getPrioritizedTasks(start.plus(Duration.ofMinutes(30)),
+                start.plus(Duration.ofHours(4)), 10);
+        assertEquals(3, range.size());
+        assertEquals("Task1", range.getFirst().getName());
+        assertEquals("Task3", range.getLast().getName());
+
+        List<Task> page = manager.getPrioritizedTasks(start, null, 2);
+        assertEquals(2, page.size());
+        assertEquals("Task1", page.getLast().getName());
+
+        assertTrue(manager.getPrioritizedTasks(start.plus(Duration.ofHours(2)), start, 10).isEmpty());
+    }
+
+    @Test
+    void getPrioritizedTasksAfterCursor() {
+        Instant start = Instant.parse("2025-03-03T12:00:00Z");
+        Task point1 = manager.createTask(new Task("Task1", "Description", Status.NEW, Duration.ZERO, start));
+        Task point2 = manager.createTask(new Task("Task2", "Description", Status.NEW, Duration.ZERO, start));
+        Task task3 = manager.createTask(new Task("Task3", "Description", Status.NEW, Duration.ofMinutes(15), start));
+        Task task4 = manager.createTask(new Task("Task4", "Description", Status.NEW, Duration.ofMinutes(15),
+                start.plus(Duration.ofHours(1))));
+
+        assertEquals(List.of(point2, task3), manager.getPrioritizedTasksAfter(start, point1.getId(), null, 2));
+        assertEquals(List.of(task4), manager.getPrioritizedTasksAfter(start, task3.getId(), null, 2));
+        assertTrue(manager.getPrioritizedTasksAfter(start, point2.getId(), start, 2).isEmpty());
+        assertTrue(manager.getPrioritizedTasksAfter(start.plus(Duration.ofHours(2)), 0, start, 2).isEmpty());
+    }
+
+    @Test
+    void findConflicts() {
+        Duration duration = Duration.of(30, ChronoUnit.MINUTES);
+        Task task1 = new Task("Task1", "Description", Status.NEW, duration, Instant.parse("2025-03-03T12:00:00Z"));
+        Task task2 = new Task("Task2", "Description", Status.NEW, duration, Instant.parse("2025-03-03T12:30:00Z"));
+        Task task3 = new Task("Task3", "Description", Status.NEW, duration, Instant.parse("2025-03-03T13:00:00Z"));
+        manager.createTask(task1);
+        manager.createTask(task2);
+        manager.createTask(task3);
+        assertTrue(manager.findConflicts().isEmpty());
+
+        task3.setStartTime(Instant.parse("2025-03-03T12:15:00Z")); //время изменено в обход проверки пересечений
+
+        List<TaskConflict> conflicts = manager.findConflicts();
+        assertEquals(2, conflicts.size());
+        assertEquals(task1, conflicts.getFirst().getFirst());
+        assertEquals(task3, conflicts.getFirst().getSecond());
+        assertEquals(task3, conflicts.getLast().getFirst());
+        assertEquals(task2, conflicts.getLast().getSecond());
+    }
 }
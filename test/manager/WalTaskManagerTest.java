@@ -0,0 +1,155 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tasks.Epic;
+import tasks.Status;
+import tasks.Subtask;
+import tasks.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalTaskManagerTest extends TaskManagerTest {
+    private File file;
+    private final List<FileBackedTaskManager> opened = new ArrayList<>(); //закрываются после теста
+
+    @BeforeEach
+    public void initManager() {
+        manager = getTaskManager();
+    }
+
+    @Override
+    TaskManager getTaskManager() {
+        try {
+            file = File.createTempFile("walTemp", ".csv");
+            return open(new WalTaskManager(file, new IntervalTree(), 5));
+        } catch (IOException e) {
+            System.out.println("Ошибка при инициализации менеджера " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (FileBackedTaskManager fileManager : opened) {
+            fileManager.close();
+        }
+        file.deleteOnExit();
+        new File(file.getPath() + ".wal").deleteOnExit();
+        new File(file.getPath() + ".history").deleteOnExit();
+    }
+
+    @Test
+    void mutationsAppendToLogWithoutRewritingSnapshot() {
+        WalTaskManager walManager = (WalTaskManager) manager;
+        long snapshotLength = file.length();
+        Task task = walManager.createTask(new Task("Task1", "Description", Status.NEW));
+        task.setStatus(Status.DONE);
+        walManager.updateTask(task);
+
+        assertEquals(snapshotLength, file.length(), "Снимок не должен переписываться при каждом изменении");
+        assertEquals(2, walManager.getWalRecords());
+    }
+
+    @Test
+    void freshManagerReplacesExistingSnapshot() throws IOException {
+        FileBackedTaskManager fileManager = open(new FileBackedTaskManager(file));
+        for (int i = 1; i <= 3; i++) {
+            fileManager.createTask(new Task("Old" + i, "Description", Status.NEW));
+        }
+        fileManager.close();
+
+        WalTaskManager fresh = open(new WalTaskManager(file, new IntervalTree(), 5));
+        Task created = fresh.createTask(new Task("New", "Description", Status.NEW));
+
+        assertEquals(List.of("N,0"), Files.readAllLines(new File(file.getPath() + ".wal").toPath()).subList(0, 1));
+        WalTaskManager loaded = open(WalTaskManager.load(file, new IntervalTree(), 5));
+        assertEquals(List.of(created), loaded.getAllTasks(), "Журнал нового менеджера применился к старому снимку");
+    }
+
+    @Test
+    void freshManagerWithoutViewsDropsOldHistoryOnRestart() {
+        Task old = manager.createTask(new Task("Old", "Description", Status.NEW));
+        manager.getTaskById(old.getId());
+        ((WalTaskManager) manager).close();
+
+        WalTaskManager fresh = open(new WalTaskManager(file, new IntervalTree(), 5));
+        fresh.createTask(new Task("New", "Description", Status.NEW));
+        fresh.close();
+
+        WalTaskManager loaded = open(WalTaskManager.load(file, new IntervalTree(), 5));
+        assertTrue(loaded.getHistory().isEmpty(), "Журнал старых данных не должен восстанавливаться");
+    }
+
+    @Test
+    void loadReplaysSnapshotAndLogTail() {
+        WalTaskManager walManager = (WalTaskManager) manager;
+        Epic epic = walManager.createEpic(new Epic("Epic1", "Description"));
+        Task task1 = walManager.createTask(new Task("Task1", "Description", Status.NEW));
+        walManager.checkpoint();
+        Subtask subtask = walManager.createSubtask(new Subtask("Subtask1", "Description", Status.DONE,
+                Duration.ofMinutes(15), Instant.parse("2025-03-03T12:00:00Z"), epic.getId()));
+        Task task2 = walManager.createTask(new Task("Task2", "Description", Status.NEW));
+        walManager.deleteTaskById(task2.getId());
+        task1.setName("Renamed");
+        walManager.updateTask(task1);
+
+        WalTaskManager loaded = open(WalTaskManager.load(file, new IntervalTree(), 5));
+
+        assertEquals(List.of(task1), loaded.getAllTasks());
+        assertEquals("Renamed", loaded.getTaskById(task1.getId()).getName());
+        assertEquals(List.of(subtask), loaded.getAllSubtasks());
+        assertEquals(Status.DONE, loaded.getEpicById(epic.getId()).getStatus());
+        Task created = loaded.createTask(new Task("Task3", "Description", Status.NEW));
+        assertTrue(created.getId() > task2.getId(), "id удаленной задачи выдан повторно");
+    }
+
+    @Test
+    void loadCascadesEpicDeleteToSnapshotAndLogSubtasks() {
+        WalTaskManager walManager = (WalTaskManager) manager;
+        Epic epic1 = walManager.createEpic(new Epic("Epic1", "Description"));
+        Epic epic2 = walManager.createEpic(new Epic("Epic2", "Description"));
+        walManager.createSubtask(new Subtask("Subtask1", "Description", Status.NEW, epic1.getId()));
+        Subtask kept = walManager.createSubtask(new Subtask("Subtask2", "Description", Status.NEW, epic2.getId()));
+        walManager.checkpoint();
+        walManager.createSubtask(new Subtask("Subtask3", "Description", Status.NEW, epic1.getId()));
+        Subtask deleted = walManager.createSubtask(new Subtask("Subtask4", "Description", Status.NEW, epic2.getId()));
+        walManager.deleteSubtaskById(deleted.getId());
+        walManager.deleteEpicById(epic1.getId());
+
+        WalTaskManager loaded = open(WalTaskManager.load(file, new IntervalTree(), 5));
+
+        assertEquals(List.of(epic2.getId()), loaded.getAllEpics().stream().map(Task::getId).toList());
+        assertEquals(List.of(kept), loaded.getAllSubtasks());
+    }
+
+    @Test
+    void checkpointTruncatesLogAndKeepsHighWaterMark() {
+        WalTaskManager walManager = (WalTaskManager) manager;
+        for (int i = 0; i < 6; i++) {
+            walManager.createTask(new Task("Task" + i, "Description", Status.NEW));
+        }
+        walManager.deleteAllTasks();
+
+        assertEquals(0, walManager.getWalRecords());
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+        WalTaskManager loaded = open(WalTaskManager.load(file, new IntervalTree(), 5));
+        assertTrue(loaded.getAllTasks().isEmpty());
+        Task created = loaded.createTask(new Task("Task", "Description", Status.NEW));
+        assertEquals(7, created.getId(), "id удаленной до снимка задачи выдан повторно");
+    }
+
+    private <T extends FileBackedTaskManager> T open(T fileManager) {
+        opened.add(fileManager);
+        return fileManager;
+    }
+}
@@ -0,0 +1,56 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLinkedHashSetTest {
+
+    @Test
+    void keepsInsertionOrderAfterRemovals() {
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        for (int i = 1; i <= 100; i++) {
+            set.add(i);
+        }
+        for (int i = 2; i <= 100; i += 2) {
+            set.remove(i);
+        }
+        set.add(2);
+        assertFalse(set.add(3));
+
+        List<Integer> values = new ArrayList<>();
+        set.forEach(values::add);
+        assertEquals(51, set.size());
+        assertEquals(1, values.getFirst());
+        assertEquals(99, values.get(49));
+        assertEquals(2, values.getLast());
+        assertEquals(values, new ArrayList<>(set.asCollection()));
+        assertTrue(set.asCollection().contains(99));
+        assertFalse(set.asCollection().contains(100));
+    }
+
+    @Test
+    void readOnlyViewIsNotModifiable() {
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        set.add(1);
+        assertThrows(UnsupportedOperationException.class, () -> set.asCollection().add(2));
+    }
+
+    @Test
+    void mapKeepsValuesAfterCollidingRemovals() {
+        IntIntHashMap map = new IntIntHashMap(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i * 16, i);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            assertEquals(i, map.remove(i * 16, -1));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 3 == 0 ? -1 : i, map.get(i * 16, -1));
+        }
+        assertEquals(666, map.size());
+    }
+}
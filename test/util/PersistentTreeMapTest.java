@@ -0,0 +1,54 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentTreeMapTest {
+
+    @Test
+    void oldVersionsStayUnchanged() {
+        PersistentTreeMap<Integer, String> empty = PersistentTreeMap.empty();
+        PersistentTreeMap<Integer, String> map = empty;
+        for (int i = 100; i >= 1; i--) {
+            map = map.put(i, "v" + i);
+        }
+        PersistentTreeMap<Integer, String> full = map;
+        for (int i = 2; i <= 100; i += 2) {
+            map = map.remove(i);
+        }
+        map = map.put(1, "new");
+
+        assertEquals(0, empty.size());
+        assertEquals(100, full.size());
+        assertEquals("v1", full.get(1));
+        assertEquals("v50", full.get(50));
+        assertEquals(50, map.size());
+        assertEquals("new", map.get(1));
+        assertNull(map.get(50));
+        assertSame(map, map.remove(50));
+    }
+
+    @Test
+    void iteratesInKeyOrderFromBound() {
+        PersistentTreeMap<Integer, Integer> map = PersistentTreeMap.empty();
+        for (int i = 0; i < 50; i++) {
+            int key = (i * 37) % 50;
+            map = map.put(key * 2, key * 2);
+        }
+        List<Integer> tail = new ArrayList<>();
+        for (Integer value : map.tailValues(31)) {
+            tail.add(value);
+        }
+
+        assertEquals(34, tail.size());
+        assertEquals(32, tail.getFirst());
+        assertEquals(98, tail.getLast());
+        assertEquals(30, map.lowerValue(31));
+        assertEquals(30, map.lowerValue(32));
+        assertNull(map.lowerValue(0));
+    }
+}